@@ -3,6 +3,8 @@ package de.rub.nds.timingdockerevaluator.config;
 
 import com.beust.jcommander.Parameter;
 import de.rub.nds.timingdockerevaluator.util.DockerTargetManagement;
+import de.rub.nds.timingdockerevaluator.util.ResultFileFormat;
+import de.rub.nds.timingdockerevaluator.util.ResultFileLayout;
 
 public class TimingDockerEvaluatorCommandConfig {
 
@@ -95,6 +97,78 @@ public class TimingDockerEvaluatorCommandConfig {
     @Parameter(names = {"-writeInEachStep"}, description = "Keep evaluating even for frequent connection failures")
     private boolean writeInEachStep = false;
     
+    @Parameter(names = {"-spillToDisk"}, description = "Append raw measurements to memory-mapped files instead of keeping them in RAM (CSV files are generated once all measurements are done)")
+    private boolean spillToDisk = false;
+    
+    @Parameter(names = {"-asyncWrite"}, description = "Write the results of each step in a background thread while the next step is measured (requires -writeInEachStep)")
+    private boolean asyncWrite = false;
+    
+    @Parameter(names = {"-resultFormat"}, description = "Format of the result files")
+    private ResultFileFormat resultFileFormat = ResultFileFormat.CSV;
+    
+    @Parameter(names = {"-resultLayout"}, description = "Write one file per compared pair of vectors or one file per vector")
+    private ResultFileLayout resultFileLayout = ResultFileLayout.PAIRWISE;
+    
+    @Parameter(names = {"-convert"}, description = "Convert the given binary result file (or all binary result files in the given directory) to CSV, create pair files for per-vector results, and exit")
+    private String convertPath = null;
+    
+    @Parameter(names = {"-earlyStop"}, description = "Stop measuring a subtask once a sequential test after each step found a difference or ruled it out for all compared pairs")
+    private boolean earlyStop = false;
+    
+    @Parameter(names = {"-earlyStopAlpha"}, description = "Overall significance level of the sequential test used for -earlyStop")
+    private double earlyStopAlpha = 0.01;
+    
+    @Parameter(names = {"-evaluate"}, description = "Run the pairwise statistical tests after the measurements of a subtask and add the results to the subtask report")
+    private boolean evaluate = false;
+    
+    @Parameter(names = {"-evaluationAlpha"}, description = "Significance level of the pairwise tests used for -evaluate")
+    private double evaluationAlpha = 0.01;
+    
+    @Parameter(names = {"-histograms"}, description = "Keep a log-bucketed latency histogram per vector and add it to the subtask report")
+    private boolean histograms = false;
+    
+    @Parameter(names = {"-histogramPrecision"}, description = "Number of significant decimal digits kept by the histograms (1-5)")
+    private int histogramPrecision = 2;
+    
+    @Parameter(names = {"-onlyHistograms"}, description = "Only keep histograms and discard the raw measurements (no result files are written)")
+    private boolean onlyHistograms = false;
+    
+    @Parameter(names = {"-adaptive"}, description = "Distribute the measurements of each step based on the variance of the vectors and the comparisons that are still undecided")
+    private boolean adaptive = false;
+    
+    @Parameter(names = {"-prepareAhead"}, description = "Number of states to prepare in a background thread ahead of the measurements (0 prepares each state right before it is measured)")
+    private int prepareAhead = 0;
+    
+    @Parameter(names = {"-sessionResumption"}, description = "Measure padding oracle and Lucky13 vectors using abbreviated handshakes that resume the session of the last full handshake (requires KEEP_ALIVE)")
+    private boolean sessionResumption = false;
+    
+    @Parameter(names = {"-pollPort"}, description = "Query the next port of a target with port switching in the background once a handshake has finished")
+    private boolean pollPort = false;
+    
+    @Parameter(names = {"-controlTimeout"}, description = "Timeout in ms for requests to the control server inside the docker containers (port requests, port switching, server restarts)")
+    private int controlTimeout = 2000;
+    
+    @Parameter(names = {"-containerPoolSize"}, description = "Number of identical containers per target that are used in turns if containers are restarted after each handshake")
+    private int containerPoolSize = 1;
+    
+    @Parameter(names = {"-readinessTimeout"}, description = "Time in ms to wait for a (re)started server to accept connections")
+    private int readinessTimeout = 10000;
+    
+    @Parameter(names = {"-probeClientHello"}, description = "Only consider a started container ready once its server answers a ClientHello")
+    private boolean probeClientHello = false;
+    
+    @Parameter(names = {"-pipeline"}, description = "Start and scan the next target while the current target is measured")
+    private boolean pipeline = false;
+    
+    @Parameter(names = {"-scanCache"}, description = "Directory of cached TLS-Scanner reports, targets with a cached report for the same image and settings are not scanned again")
+    private String scanCache = null;
+    
+    @Parameter(names = {"-planSeed"}, description = "Seed for the randomized measurement order (logged for each subtask if not set)")
+    private Long planSeed = null;
+    
+    @Parameter(names = {"-resume"}, description = "Continue an interrupted run from the checkpoints in the output directory (requires -o)")
+    private boolean resume = false;
+    
     @Parameter(names = {"-echoTest"}, description = "(testing) use static traces to test with hard-coded echo server")
     private boolean echoTest = false;
     
@@ -302,6 +376,202 @@ public class TimingDockerEvaluatorCommandConfig {
         this.writeInEachStep = writeInEachStep;
     }
 
+    public boolean isSpillToDisk() {
+        return spillToDisk;
+    }
+
+    public void setSpillToDisk(boolean spillToDisk) {
+        this.spillToDisk = spillToDisk;
+    }
+
+    public boolean isAsyncWrite() {
+        return asyncWrite;
+    }
+
+    public void setAsyncWrite(boolean asyncWrite) {
+        this.asyncWrite = asyncWrite;
+    }
+
+    public ResultFileFormat getResultFileFormat() {
+        return resultFileFormat;
+    }
+
+    public void setResultFileFormat(ResultFileFormat resultFileFormat) {
+        this.resultFileFormat = resultFileFormat;
+    }
+
+    public ResultFileLayout getResultFileLayout() {
+        return resultFileLayout;
+    }
+
+    public void setResultFileLayout(ResultFileLayout resultFileLayout) {
+        this.resultFileLayout = resultFileLayout;
+    }
+
+    public String getConvertPath() {
+        return convertPath;
+    }
+
+    public void setConvertPath(String convertPath) {
+        this.convertPath = convertPath;
+    }
+
+    public boolean isEarlyStop() {
+        return earlyStop;
+    }
+
+    public void setEarlyStop(boolean earlyStop) {
+        this.earlyStop = earlyStop;
+    }
+
+    public double getEarlyStopAlpha() {
+        return earlyStopAlpha;
+    }
+
+    public void setEarlyStopAlpha(double earlyStopAlpha) {
+        this.earlyStopAlpha = earlyStopAlpha;
+    }
+
+    public boolean isEvaluate() {
+        return evaluate;
+    }
+
+    public void setEvaluate(boolean evaluate) {
+        this.evaluate = evaluate;
+    }
+
+    public double getEvaluationAlpha() {
+        return evaluationAlpha;
+    }
+
+    public void setEvaluationAlpha(double evaluationAlpha) {
+        this.evaluationAlpha = evaluationAlpha;
+    }
+
+    public boolean isHistograms() {
+        return histograms;
+    }
+
+    public void setHistograms(boolean histograms) {
+        this.histograms = histograms;
+    }
+
+    public int getHistogramPrecision() {
+        return histogramPrecision;
+    }
+
+    public void setHistogramPrecision(int histogramPrecision) {
+        this.histogramPrecision = histogramPrecision;
+    }
+
+    public boolean isOnlyHistograms() {
+        return onlyHistograms;
+    }
+
+    public void setOnlyHistograms(boolean onlyHistograms) {
+        this.onlyHistograms = onlyHistograms;
+    }
+
+    public boolean isKeepHistograms() {
+        return histograms || onlyHistograms;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    public void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    public int getPrepareAhead() {
+        return prepareAhead;
+    }
+
+    public void setPrepareAhead(int prepareAhead) {
+        this.prepareAhead = prepareAhead;
+    }
+
+    public boolean isSessionResumption() {
+        return sessionResumption;
+    }
+
+    public void setSessionResumption(boolean sessionResumption) {
+        this.sessionResumption = sessionResumption;
+    }
+
+    public boolean isPollPort() {
+        return pollPort;
+    }
+
+    public void setPollPort(boolean pollPort) {
+        this.pollPort = pollPort;
+    }
+
+    public int getControlTimeout() {
+        return controlTimeout;
+    }
+
+    public void setControlTimeout(int controlTimeout) {
+        this.controlTimeout = controlTimeout;
+    }
+
+    public int getContainerPoolSize() {
+        return containerPoolSize;
+    }
+
+    public void setContainerPoolSize(int containerPoolSize) {
+        this.containerPoolSize = containerPoolSize;
+    }
+
+    public int getReadinessTimeout() {
+        return readinessTimeout;
+    }
+
+    public void setReadinessTimeout(int readinessTimeout) {
+        this.readinessTimeout = readinessTimeout;
+    }
+
+    public boolean isProbeClientHello() {
+        return probeClientHello;
+    }
+
+    public void setProbeClientHello(boolean probeClientHello) {
+        this.probeClientHello = probeClientHello;
+    }
+
+    public boolean isPipeline() {
+        return pipeline;
+    }
+
+    public void setPipeline(boolean pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    public String getScanCache() {
+        return scanCache;
+    }
+
+    public void setScanCache(String scanCache) {
+        this.scanCache = scanCache;
+    }
+
+    public Long getPlanSeed() {
+        return planSeed;
+    }
+
+    public void setPlanSeed(Long planSeed) {
+        this.planSeed = planSeed;
+    }
+
+    public boolean isResume() {
+        return resume;
+    }
+
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+
     public String getProxyIp() {
         return proxyIp;
     }
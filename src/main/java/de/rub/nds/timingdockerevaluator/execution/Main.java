@@ -7,11 +7,20 @@ import com.github.dockerjava.api.model.Container;
 import com.github.dockerjava.api.model.Image;
 import de.rub.nds.timingdockerevaluator.config.TimingDockerEvaluatorCommandConfig;
 import de.rub.nds.timingdockerevaluator.task.EvaluationTask;
+import de.rub.nds.timingdockerevaluator.task.eval.AsyncResultWriter;
+import de.rub.nds.timingdockerevaluator.task.eval.ResultFileConverter;
+import de.rub.nds.timingdockerevaluator.task.eval.ResultFileWriter;
+import de.rub.nds.timingdockerevaluator.task.eval.SubtaskCheckpoint;
+import de.rub.nds.timingdockerevaluator.task.subtask.EvaluationSubtask;
+import de.rub.nds.timingdockerevaluator.util.DockerTargetManagement;
+import de.rub.nds.timingdockerevaluator.util.HttpUtil;
 import de.rub.nds.timingdockerevaluator.util.TimingBenchmark;
 import de.rub.nds.tls.subject.TlsImplementationType;
 import de.rub.nds.tls.subject.constants.TlsImageLabels;
 import de.rub.nds.tls.subject.docker.DockerClientManager;
 import de.rub.nds.tls.subject.docker.DockerTlsManagerFactory;
+import java.io.File;
+import java.io.IOException;
 import java.security.Security;
 import java.util.Arrays;
 import java.util.LinkedList;
@@ -32,6 +41,7 @@ public class Main {
     private static final Logger LOGGER = LogManager.getLogger();
     private static final DockerClient DOCKER = DockerClientManager.getDockerClient();
     private static TimingDockerEvaluatorCommandConfig evaluationConfig;
+    private static final int PIPELINE_LOOKAHEAD = 1;
 
     public static void main(String args[]) {
         Security.addProvider(new BouncyCastleProvider());
@@ -50,11 +60,31 @@ public class Main {
         }
         
         TimingBenchmark.setEvaluationConfig(evaluationConfig);
+        if (evaluationConfig.getConvertPath() != null) {
+            convertResultFiles();
+            return;
+        }
         measureTask(); 
     }
 
+    private static void convertResultFiles() {
+        ResultFileConverter converter = new ResultFileConverter();
+        try {
+            converter.convert(new File(evaluationConfig.getConvertPath()));
+            LOGGER.info("Converted {} binary result files to CSV and created {} pair files", converter.getConvertedFiles(), converter.getCreatedPairFiles());
+        } catch (IOException ex) {
+            LOGGER.error("Failed to convert result files", ex);
+        }
+    }
+
     protected static void measureTask() {
         logConfiguration();
+        if (evaluationConfig.getOutputDirectory() != null) {
+            // spill files and checkpoints are accessed before the first result file is written
+            ResultFileWriter.setOutputFolder(evaluationConfig.getOutputDirectory());
+        }
+        HttpUtil.setControlTimeout(evaluationConfig.getControlTimeout());
+        Runtime.getRuntime().addShutdownHook(new Thread(Main::shutdownGracefully));
 
         ExecutorService executor;
         if (evaluationConfig.isManagedTarget()) {
@@ -72,6 +102,29 @@ public class Main {
         }
     }
 
+    private static void shutdownGracefully() {
+        AsyncResultWriter.flushAll();
+        EvaluationSubtask.persistActiveSubtasks();
+        if (evaluationConfig.isManagedTarget() && !evaluationConfig.isKeepContainer()) {
+            EvaluationTask.stopActiveContainers();
+        }
+    }
+
+    private static void runTask(EvaluationTask task) {
+        if (!skipFinishedTarget(task)) {
+            task.execute();
+        }
+    }
+
+    private static boolean skipFinishedTarget(EvaluationTask task) {
+        if (evaluationConfig.isResume() && SubtaskCheckpoint.isTargetFinished(task.getTargetName())) {
+            LOGGER.info("Skipping {} as it has already been evaluated", task.getTargetName());
+            ExecutionWatcher.getReference().finishedTask();
+            return true;
+        }
+        return false;
+    }
+
     private static void logConfiguration() {
         LOGGER.info("Measurements per step set to {}", evaluationConfig.getMeasurementsPerStep());
         LOGGER.info("Total measurements per vector set to {}", evaluationConfig.getTotalMeasurements());
@@ -91,12 +144,56 @@ public class Main {
             throw new ParameterException("Measurements per step exceed total number of measurements.");
         } else if (evaluationConfig.getBaseVersion() != null && evaluationConfig.getSpecificVersion() != null) {
             throw new ParameterException("Both specific and base version(s) specified.");
+        } else if (evaluationConfig.isResume() && evaluationConfig.getOutputDirectory() == null) {
+            throw new ParameterException("Resuming requires the output directory (-o) of the interrupted run.");
+        } else if (evaluationConfig.isKeepHistograms() && (evaluationConfig.getHistogramPrecision() < 1 || evaluationConfig.getHistogramPrecision() > 5)) {
+            throw new ParameterException("Histogram precision must be between 1 and 5 significant digits.");
+        } else if (evaluationConfig.getControlTimeout() <= 0) {
+            throw new ParameterException("Timeout for the container control server must be positive.");
+        } else if (evaluationConfig.getPrepareAhead() < 0) {
+            throw new ParameterException("Number of states to prepare ahead must not be negative.");
+        } else if (evaluationConfig.getContainerPoolSize() < 1) {
+            throw new ParameterException("Container pool size must be at least 1.");
+        } else if (evaluationConfig.getReadinessTimeout() <= 0) {
+            throw new ParameterException("Readiness timeout must be positive.");
+        } else if (evaluationConfig.getContainerPoolSize() > 1 && evaluationConfig.isUseHostNetwork()) {
+            throw new ParameterException("Pooled containers require the bridge network and can not be combined with -host.");
         }
         
-        if(evaluationConfig.getMeasurementsPerStep() < evaluationConfig.getTotalMeasurements() && !evaluationConfig.isWriteInEachStep()) {
+        if(evaluationConfig.getMeasurementsPerStep() < evaluationConfig.getTotalMeasurements() && !evaluationConfig.isWriteInEachStep() && !evaluationConfig.isSpillToDisk() && !evaluationConfig.isOnlyHistograms()) {
             LOGGER.warn("Configured to run in steps but reduced RAM mode (-writeInEachStep) is disabled.");
         }
         
+        if(evaluationConfig.isSpillToDisk() && evaluationConfig.isWriteInEachStep()) {
+            LOGGER.warn("Measurements are spilled to disk, -writeInEachStep will be ignored.");
+        }
+        
+        if(evaluationConfig.isOnlyHistograms() && (evaluationConfig.isSpillToDisk() || evaluationConfig.isAsyncWrite())) {
+            LOGGER.warn("Only histograms are kept, -spillToDisk and -asyncWrite will be ignored.");
+        }
+        
+        if(evaluationConfig.isAsyncWrite() && (!evaluationConfig.isWriteInEachStep() || evaluationConfig.isSpillToDisk())) {
+            LOGGER.warn("Results are only written in the background with -writeInEachStep and without -spillToDisk, -asyncWrite will be ignored.");
+        }
+        
+        if(evaluationConfig.isSessionResumption() && evaluationConfig.getTargetManagement() != DockerTargetManagement.KEEP_ALIVE) {
+            LOGGER.warn("Sessions can only be resumed if the server is kept alive, -sessionResumption will be ignored.");
+        }
+        
+        if(evaluationConfig.getContainerPoolSize() > 1 && (!evaluationConfig.isManagedTarget() || evaluationConfig.getTargetManagement() != DockerTargetManagement.RESTART_CONTAINTER)) {
+            LOGGER.warn("Containers are only pooled if they are restarted after each handshake, -containerPoolSize will be ignored.");
+        }
+        
+        if(evaluationConfig.isPipeline() && !evaluationConfig.isManagedTarget()) {
+            LOGGER.warn("Only managed targets can be pipelined, -pipeline will be ignored.");
+        } else if(evaluationConfig.isPipeline() && evaluationConfig.getThreads() > 1) {
+            LOGGER.warn("The pipeline measures one target at a time, -threads will be ignored.");
+        }
+        
+        if(evaluationConfig.getScanCache() != null && !evaluationConfig.isManagedTarget()) {
+            LOGGER.warn("Only scans of docker images are cached, -scanCache will be ignored.");
+        }
+        
         if(evaluationConfig.getAdditionalParameter() != null && evaluationConfig.isNoAutoFlags()) {
             LOGGER.warn("Will set additional parameters as well as automatically chosen flags for docker containers. Set -noAutoFlags to avoid this.");
         }
@@ -108,8 +205,7 @@ public class Main {
         if (!evaluationConfig.isDryRun()) {
             ExecutionWatcher.getReference().setTasks(1);
             executor.execute(() -> {
-                EvaluationTask task = new EvaluationTask(evaluationConfig);
-                task.execute();
+                runTask(new EvaluationTask(evaluationConfig));
             });
          }
         return executor;
@@ -123,11 +219,21 @@ public class Main {
         LOGGER.info("Versions: {}", images.stream().map(image -> image.getLabels().get(TlsImageLabels.VERSION.getLabelName())).distinct().collect(Collectors.joining(",")));
         ExecutionWatcher.getReference().setTasks(images.size());
         ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(evaluationConfig.getThreads());
-        if (!evaluationConfig.isDryRun()) {
+        if (!evaluationConfig.isDryRun() && evaluationConfig.isPipeline()) {
+            List<EvaluationTask> tasks = new LinkedList<>();
+            for (Image image : images) {
+                EvaluationTask task = new EvaluationTask(image, evaluationConfig);
+                if (!skipFinishedTarget(task)) {
+                    tasks.add(task);
+                }
+            }
+            executor.execute(() -> {
+                new TaskPipeline(PIPELINE_LOOKAHEAD).run(tasks);
+            });
+        } else if (!evaluationConfig.isDryRun()) {
             for (Image image : images) {
                 executor.execute(() -> {
-                    EvaluationTask task = new EvaluationTask(image, evaluationConfig);
-                    task.execute();
+                    runTask(new EvaluationTask(image, evaluationConfig));
                 });              
             }
         }
@@ -0,0 +1,52 @@
+package de.rub.nds.timingdockerevaluator.execution;
+
+/**
+ * Coordinates the lanes of a task pipeline such that preparing or cleaning
+ * up targets does not interfere with measurements. Preparation is split into
+ * short steps (single docker calls or scanner connections) and a step only
+ * starts while no measurement step runs or waits. A measurement step at most
+ * waits for the preparation step that is currently running, never for a
+ * whole preparation phase.
+ */
+public class MeasurementGate {
+
+    private int activeMeasurements = 0;
+    private int waitingMeasurements = 0;
+    private boolean preparing = false;
+
+    /**
+     * Blocks until the running preparation step finished.
+     */
+    public synchronized void enterMeasurement() throws InterruptedException {
+        waitingMeasurements++;
+        try {
+            while (preparing) {
+                wait();
+            }
+        } finally {
+            waitingMeasurements--;
+        }
+        activeMeasurements++;
+    }
+
+    public synchronized void exitMeasurement() {
+        activeMeasurements--;
+        notifyAll();
+    }
+
+    /**
+     * Blocks until no measurement step runs or waits and no other
+     * preparation step runs.
+     */
+    public synchronized void enterPreparation() throws InterruptedException {
+        while (activeMeasurements > 0 || waitingMeasurements > 0 || preparing) {
+            wait();
+        }
+        preparing = true;
+    }
+
+    public synchronized void exitPreparation() {
+        preparing = false;
+        notifyAll();
+    }
+}
@@ -0,0 +1,110 @@
+package de.rub.nds.timingdockerevaluator.execution;
+
+import de.rub.nds.timingdockerevaluator.task.EvaluationTask;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Evaluates targets one after another in three lanes. The preparation lane
+ * starts and scans upcoming targets, the measurement lane measures the
+ * prepared targets back to back, and the cleanup lane stops the containers of
+ * measured targets. Preparation and cleanup are split into short steps that
+ * yield to measurement steps through a shared gate, so the measurement lane
+ * never waits for more than a single docker call or scanner connection.
+ */
+public class TaskPipeline {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final Semaphore preparationSlots;
+    private final BlockingQueue<PreparedTask> preparedTasks = new LinkedBlockingQueue<>();
+    private final MeasurementGate measurementGate = new MeasurementGate();
+    private final ExecutorService preparationLane = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "PreparationLane"));
+    private final ExecutorService cleanupLane = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "CleanupLane"));
+
+    /**
+     * @param lookahead the number of targets that may be prepared while
+     * another target is measured
+     */
+    public TaskPipeline(int lookahead) {
+        preparationSlots = new Semaphore(lookahead);
+    }
+
+    /**
+     * Measures the tasks in the given order in the calling thread while the
+     * upcoming tasks are prepared in the background.
+     */
+    public void run(List<EvaluationTask> tasks) {
+        for (EvaluationTask task : tasks) {
+            task.setMeasurementGate(measurementGate);
+        }
+        preparationLane.execute(() -> prepareTasks(tasks));
+        try {
+            for (int i = 0; i < tasks.size(); i++) {
+                PreparedTask preparedTask = preparedTasks.take();
+                preparationSlots.release();
+                if (preparedTask.prepared) {
+                    preparedTask.task.measure();
+                }
+                cleanupLane.execute(preparedTask.task::finish);
+            }
+        } catch (InterruptedException ex) {
+            LOGGER.error("Interrupted while waiting for the next prepared target");
+            Thread.currentThread().interrupt();
+        } finally {
+            // the lanes are drained even if this thread has been interrupted
+            boolean interrupted = Thread.interrupted();
+            preparationLane.shutdownNow();
+            try {
+                preparationLane.awaitTermination(1, TimeUnit.HOURS);
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+            // prepared targets that will not be measured still hold containers
+            PreparedTask unmeasuredTask;
+            while ((unmeasuredTask = preparedTasks.poll()) != null) {
+                LOGGER.warn("Skipping measurements of prepared target {}", unmeasuredTask.task.getTargetName());
+                cleanupLane.execute(unmeasuredTask.task::finish);
+            }
+            cleanupLane.shutdown();
+            try {
+                cleanupLane.awaitTermination(1, TimeUnit.HOURS);
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void prepareTasks(List<EvaluationTask> tasks) {
+        for (EvaluationTask task : tasks) {
+            try {
+                preparationSlots.acquire();
+            } catch (InterruptedException ex) {
+                return;
+            }
+            boolean prepared = task.prepare();
+            preparedTasks.add(new PreparedTask(task, prepared));
+        }
+    }
+
+    private static class PreparedTask {
+
+        private final EvaluationTask task;
+        private final boolean prepared;
+
+        PreparedTask(EvaluationTask task, boolean prepared) {
+            this.task = task;
+            this.prepared = prepared;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package de.rub.nds.timingdockerevaluator.task;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.EventType;
+import de.rub.nds.tls.subject.docker.DockerClientManager;
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * One subscription to the docker event stream shared by all tasks. Start,
+ * die, and oom events of registered evaluation containers are recorded as
+ * soon as docker reports them, such that a dead container is noticed before
+ * measurements run into timeouts. Whether a container is down is decided by
+ * the timestamps of its latest start and death, so events arriving late from
+ * a restart of our own do not mark a running container as dead. All
+ * timestamps are taken from the docker daemon, which may run on another host
+ * with a different clock.
+ */
+public class ContainerEventListener {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final long RESUBSCRIBE_DELAY_MS = 1000;
+
+    public static final String EVENT_START = "start";
+    public static final String EVENT_DIE = "die";
+    public static final String EVENT_OOM = "oom";
+
+    private static ContainerEventListener reference;
+
+    private final DockerClient docker;
+    private final Map<String, RegisteredContainer> containers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService resubscriber;
+    private Closeable subscription;
+    private boolean closed = false;
+
+    public ContainerEventListener(DockerClient docker) {
+        this.docker = docker;
+        resubscriber = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread resubscriberThread = new Thread(runnable, "ContainerEventListener");
+            resubscriberThread.setDaemon(true);
+            return resubscriberThread;
+        });
+    }
+
+    public static synchronized ContainerEventListener getReference() {
+        if (reference == null) {
+            reference = new ContainerEventListener(DockerClientManager.getDockerClient());
+        }
+        return reference;
+    }
+
+    /**
+     * Records the events of a running container.
+     *
+     * @param startedAtNanos the start time of the container reported by the
+     * daemon
+     */
+    public synchronized void register(String containerId, long startedAtNanos) {
+        containers.put(containerId, new RegisteredContainer(startedAtNanos));
+        subscribe();
+    }
+
+    /**
+     * Stops listening for events of the container. The subscription is
+     * closed once no container is registered anymore.
+     */
+    public synchronized void unregister(String containerId) {
+        containers.remove(containerId);
+        if (containers.isEmpty()) {
+            closeSubscription();
+        }
+    }
+
+    /**
+     * @return true if docker reported the death of the container after it
+     * was last started
+     */
+    public boolean isDown(String containerId) {
+        RegisteredContainer container = containers.get(containerId);
+        return container != null && container.isDown();
+    }
+
+    /**
+     * @return true if the last death of the container was caused by running
+     * out of memory
+     */
+    public boolean isOutOfMemory(String containerId) {
+        RegisteredContainer container = containers.get(containerId);
+        return container != null && container.outOfMemory;
+    }
+
+    public boolean isRegistered(String containerId) {
+        return containers.containsKey(containerId);
+    }
+
+    /**
+     * Marks the container as running, e.g. once a restart of our own
+     * completed, without waiting for the start event.
+     *
+     * @param startedAtNanos the start time of the container reported by the
+     * daemon
+     */
+    public void markStarted(String containerId, long startedAtNanos) {
+        RegisteredContainer container = containers.get(containerId);
+        if (container != null) {
+            container.started(startedAtNanos);
+        }
+    }
+
+    /**
+     * Converts a timestamp of the docker API, such as the start time of a
+     * container, to nanoseconds since the epoch.
+     */
+    public static long parseDockerTime(String timestamp) {
+        Instant instant = Instant.parse(timestamp);
+        return instant.getEpochSecond() * 1_000_000_000 + instant.getNano();
+    }
+
+    public synchronized void close() {
+        closed = true;
+        resubscriber.shutdownNow();
+        closeSubscription();
+    }
+
+    private synchronized void subscribe() {
+        if (subscription != null || closed || containers.isEmpty()) {
+            return;
+        }
+        LOGGER.debug("Subscribing to docker container events");
+        subscription = docker.eventsCmd()
+                .withEventTypeFilter(EventType.CONTAINER)
+                .withEventFilter(EVENT_START, EVENT_DIE, EVENT_OOM)
+                .exec(new ResultCallback.Adapter<Event>() {
+                    @Override
+                    public void onNext(Event event) {
+                        handleEvent(event);
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        LOGGER.warn("Docker event stream failed, subscribing again", throwable);
+                        resubscribe();
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        resubscribe();
+                    }
+                });
+    }
+
+    private synchronized void resubscribe() {
+        closeSubscription();
+        if (!closed && !containers.isEmpty()) {
+            resubscriber.schedule(this::subscribe, RESUBSCRIBE_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void closeSubscription() {
+        if (subscription != null) {
+            try {
+                subscription.close();
+            } catch (IOException ignored) {
+            }
+            subscription = null;
+        }
+    }
+
+    void handleEvent(Event event) {
+        String containerId = event.getActor() != null ? event.getActor().getId() : event.getId();
+        String action = event.getAction() != null ? event.getAction() : event.getStatus();
+        if (containerId == null || action == null) {
+            return;
+        }
+        RegisteredContainer container = containers.get(containerId);
+        if (container == null) {
+            return;
+        }
+        String containerName = event.getActor() != null && event.getActor().getAttributes() != null ? event.getActor().getAttributes().get("name") : null;
+        if (containerName != null && !containerName.startsWith(EvaluationTask.CONTAINER_NAME_PREFIX)) {
+            return;
+        }
+        long timeNanos;
+        if (event.getTimeNano() != null) {
+            timeNanos = event.getTimeNano();
+        } else if (event.getTime() != null) {
+            timeNanos = event.getTime() * 1_000_000_000;
+        } else {
+            // the local clock cannot be compared to the daemon's
+            LOGGER.debug("Ignoring {} event without timestamp for container {}", action, containerId);
+            return;
+        }
+        switch (action) {
+            case EVENT_START:
+                container.started(timeNanos);
+                break;
+            case EVENT_DIE:
+                container.died(timeNanos);
+                break;
+            case EVENT_OOM:
+                container.outOfMemory(timeNanos);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static class RegisteredContainer {
+
+        private long lastStart;
+        private long lastDeath = 0;
+        private volatile boolean outOfMemory = false;
+
+        RegisteredContainer(long startedAt) {
+            this.lastStart = startedAt;
+        }
+
+        synchronized void started(long timeNanos) {
+            lastStart = Math.max(lastStart, timeNanos);
+            if (lastStart > lastDeath) {
+                outOfMemory = false;
+            }
+        }
+
+        synchronized void died(long timeNanos) {
+            lastDeath = Math.max(lastDeath, timeNanos);
+        }
+
+        synchronized void outOfMemory(long timeNanos) {
+            // docker reports the oom event before the container dies
+            died(timeNanos);
+            outOfMemory = true;
+        }
+
+        synchronized boolean isDown() {
+            return lastDeath > lastStart;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package de.rub.nds.timingdockerevaluator.task;
+
+import de.rub.nds.tls.subject.docker.DockerTlsServerInstance;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Identical containers of a target that are used in turns when the container
+ * has to be restarted after each handshake. Rotating hands the used container
+ * over to a background thread for its restart and switches to a container
+ * that has already been restarted, so measurements only wait for docker if
+ * all containers are still restarting. A container that fails to restart is
+ * replaced by a new one, such that the pool does not shrink.
+ */
+public class ContainerPool {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final long READY_TIMEOUT_SECONDS = 120;
+
+    private final String name;
+    private final Supplier<PooledContainer> starter;
+    private final UnaryOperator<PooledContainer> restarter;
+    private final BlockingQueue<PooledContainer> readyContainers = new LinkedBlockingQueue<>();
+    private final List<PooledContainer> containers = new LinkedList<>();
+    private final ExecutorService restartExecutor;
+    private PooledContainer current;
+    // the current container has already been handed over for a restart
+    private boolean currentReleased = false;
+
+    /**
+     * @param initial the container that is currently used
+     * @param size the total number of containers including the initial one
+     * @param starter creates and starts an additional container
+     * @param restarter restarts a container and returns it with its new
+     * address
+     */
+    public ContainerPool(String name, PooledContainer initial, int size, Supplier<PooledContainer> starter, UnaryOperator<PooledContainer> restarter) {
+        this.name = name;
+        this.starter = starter;
+        this.restarter = restarter;
+        this.current = initial;
+        containers.add(initial);
+        restartExecutor = Executors.newFixedThreadPool(Math.max(1, size - 1), runnable -> {
+            Thread restartThread = new Thread(runnable, "ContainerPool-" + name);
+            restartThread.setDaemon(true);
+            return restartThread;
+        });
+        for (int i = 1; i < size; i++) {
+            restartExecutor.submit(this::startContainer);
+        }
+    }
+
+    public synchronized PooledContainer getCurrent() {
+        return current;
+    }
+
+    /**
+     * Restarts the current container in the background and switches to the
+     * next restarted container. If no container becomes ready in time, the
+     * current container is kept and the next rotation only waits for it.
+     *
+     * @return the container to use for the next handshake
+     */
+    public PooledContainer rotate() {
+        synchronized (this) {
+            if (!currentReleased) {
+                PooledContainer used = current;
+                restartExecutor.submit(() -> restartContainer(used));
+                currentReleased = true;
+            }
+        }
+        PooledContainer next;
+        try {
+            next = readyContainers.poll(READY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            next = null;
+        }
+        if (next == null) {
+            throw new RuntimeException("No pooled container of " + name + " became ready");
+        }
+        synchronized (this) {
+            current = next;
+            currentReleased = false;
+        }
+        return next;
+    }
+
+    private void startContainer() {
+        try {
+            PooledContainer started = starter.get();
+            synchronized (containers) {
+                containers.add(started);
+            }
+            readyContainers.add(started);
+        } catch (RuntimeException ex) {
+            LOGGER.error("Failed to start additional container for {}", name, ex);
+        }
+    }
+
+    private void restartContainer(PooledContainer used) {
+        try {
+            readyContainers.add(restarter.apply(used));
+        } catch (RuntimeException ex) {
+            // the failed container is still stopped when the pool is closed
+            LOGGER.error("Failed to restart pooled container {} of {}, starting a replacement", used.getInstance().getId(), name, ex);
+            startContainer();
+        }
+    }
+
+    /**
+     * Stops restarting containers.
+     *
+     * @return all containers of the pool, which have to be stopped by the
+     * caller
+     */
+    public List<DockerTlsServerInstance> close() {
+        restartExecutor.shutdownNow();
+        try {
+            restartExecutor.awaitTermination(READY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        List<DockerTlsServerInstance> instances = new LinkedList<>();
+        synchronized (containers) {
+            for (PooledContainer container : containers) {
+                instances.add(container.getInstance());
+            }
+        }
+        return instances;
+    }
+
+    public static class PooledContainer {
+
+        private final DockerTlsServerInstance instance;
+        private final String ip;
+
+        public PooledContainer(DockerTlsServerInstance instance, String ip) {
+            this.instance = instance;
+            this.ip = ip;
+        }
+
+        public DockerTlsServerInstance getInstance() {
+            return instance;
+        }
+
+        public String getIp() {
+            return ip;
+        }
+    }
+}
@@ -6,6 +6,8 @@ import com.github.dockerjava.api.exception.NotModifiedException;
 import com.github.dockerjava.api.model.Image;
 import de.rub.nds.timingdockerevaluator.config.TimingDockerEvaluatorCommandConfig;
 import de.rub.nds.timingdockerevaluator.execution.ExecutionWatcher;
+import de.rub.nds.timingdockerevaluator.execution.MeasurementGate;
+import de.rub.nds.timingdockerevaluator.task.eval.SubtaskCheckpoint;
 import de.rub.nds.timingdockerevaluator.task.exception.ContainerFailedException;
 import de.rub.nds.timingdockerevaluator.task.exception.FailedToHandshakeException;
 import de.rub.nds.timingdockerevaluator.task.exception.NoSubtaskApplicableException;
@@ -17,6 +19,8 @@ import de.rub.nds.timingdockerevaluator.task.subtask.PaddingOracleSubtask;
 import de.rub.nds.timingdockerevaluator.task.subtask.SubtaskReportWriter;
 import de.rub.nds.timingdockerevaluator.util.DockerTargetManagement;
 import de.rub.nds.timingdockerevaluator.util.HttpUtil;
+import de.rub.nds.timingdockerevaluator.util.PortStateCache;
+import de.rub.nds.timingdockerevaluator.util.ReadinessProbe;
 import de.rub.nds.timingdockerevaluator.util.TimingBenchmark;
 import de.rub.nds.tls.subject.TlsImplementationType;
 import de.rub.nds.tls.subject.constants.TlsImageLabels;
@@ -38,21 +42,27 @@ import de.rub.nds.tlsscanner.serverscanner.connectivity.ConnectivityChecker;
 import de.rub.nds.tlsscanner.serverscanner.execution.TlsServerScanner;
 import de.rub.nds.tlsscanner.serverscanner.report.ServerReport;
 import de.rub.nds.tlsscanner.serverscanner.selector.DefaultConfigProfile;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class EvaluationTask extends TimingDockerTask {
 
-    private final static int PORT_SWITCH_ACTIVATION_ATTEMPTS = 3;
+    private final static int RESTART_ATTEMPTS = 2;
+    private static final TlsProbeType[] SCAN_PROBES = {TlsProbeType.PROTOCOL_VERSION, TlsProbeType.CIPHER_SUITE, TlsProbeType.CCA_SUPPORT, TlsProbeType.CCA_REQUIRED};
 
     private static final Logger LOGGER = LogManager.getLogger();
     public static final String CONTAINER_NAME_PREFIX = "timingEval-";
     private static final DockerClient DOCKER = DockerClientManager.getDockerClient();
+    private static final Set<EvaluationTask> ACTIVE_TASKS = ConcurrentHashMap.newKeySet();
 
     private int targetPort;
     private String targetIp;
@@ -60,10 +70,18 @@ public class EvaluationTask extends TimingDockerTask {
     private final String targetName;
     private TlsImplementationType implementation;
     private String version;
+    private String imageId;
     private ServerReport serverReport;
     private DockerTlsServerInstance dockerInstance;
 
     private boolean portSwitchEnabled = false;
+    private PortStateCache portStateCache;
+    private ContainerPool containerPool;
+    private final ReadinessProbe readinessProbe;
+    private MeasurementGate measurementGate;
+    private volatile boolean measurementStepActive = false;
+    private volatile boolean preparationStepActive = false;
+    private long startTimestamp;
 
     List<EvaluationSubtask> subtasks = new LinkedList<>();
 
@@ -71,35 +89,136 @@ public class EvaluationTask extends TimingDockerTask {
         super(evaluationConfig);
         this.implementation = TlsImplementationType.fromString(image.getLabels().get(TlsImageLabels.IMPLEMENTATION.getLabelName()));
         this.version = image.getLabels().get(TlsImageLabels.VERSION.getLabelName());
+        this.imageId = image.getId();
         this.targetName = implementation.toString() + "-" + version;
+        this.readinessProbe = new ReadinessProbe(targetName, Duration.ofMillis(evaluationConfig.getReadinessTimeout()));
     }
 
     public EvaluationTask(TimingDockerEvaluatorCommandConfig evaluationConfig) {
         super(evaluationConfig);
         this.targetName = (evaluationConfig.getSpecificName() != null) ? evaluationConfig.getSpecificName() : "RemoteTarget";
+        this.readinessProbe = new ReadinessProbe(targetName, Duration.ofMillis(evaluationConfig.getReadinessTimeout()));
     }
 
     public void execute() {
+        try {
+            if (prepare()) {
+                measure();
+            }
+        } finally {
+            finish();
+        }
+    }
+
+    /**
+     * Starts the target, scans it, and determines the applicable subtasks.
+     *
+     * @return false if the target can not be measured, the failure has
+     * already been reported
+     */
+    public boolean prepare() {
         LOGGER.info("Starting tests for {}", targetName);
-        long startTimestamp = System.currentTimeMillis();
+        startTimestamp = System.currentTimeMillis();
+        ACTIVE_TASKS.add(this);
         try {
-            if (getEvaluationConfig().isManagedTarget()) {
-                dockerInstance = prepareNewDockerContainer();
-                waitForContainer();
-                retrieveContainerIp(dockerInstance);
-                handlePortSwitching();
-                if (getEvaluationConfig().isUseHostNetwork()) {
-                    int oldPort = targetPort;
-                    dockerInstance.updateInstancePort();
-                    targetPort = dockerInstance.getHostInfo().getPort();
-                    LOGGER.info("Switched port for {} from {} to {}", targetName, oldPort, targetPort);
+            return runPhase(() -> {
+                enterPreparationStep();
+                prepareTarget();
+            });
+        } finally {
+            exitPreparationStep();
+        }
+    }
+
+    /**
+     * Measures all subtasks of a prepared target.
+     */
+    public void measure() {
+        try {
+            runPhase(this::measureTarget);
+        } finally {
+            // a failed subtask may not have released the gate
+            releaseMeasurementGate();
+        }
+    }
+
+    /**
+     * Stops the containers of the target and reports the task as finished.
+     */
+    public void finish() {
+        try {
+            enterPreparationStep();
+        } catch (InterruptedException ex) {
+            // clean up regardless, the containers must not be left behind
+            Thread.currentThread().interrupt();
+        }
+        try {
+            ACTIVE_TASKS.remove(this);
+            readinessProbe.logStartupLatency();
+            closePortStateCache();
+            if (targetIp != null) {
+                HttpUtil.releaseControlClient(targetIp);
+            }
+            List<DockerTlsServerInstance> pooledInstances = closeContainerPool();
+            unregisterContainerEvents(pooledInstances);
+            if (getEvaluationConfig().isManagedTarget() && !getEvaluationConfig().isKeepContainer() && dockerInstance != null) {
+                if (pooledInstances.isEmpty()) {
+                    stopContainter(dockerInstance);
+                } else {
+                    pooledInstances.forEach(this::stopContainter);
                 }
-                testTarget();
-            } else {
-                targetIp = getEvaluationConfig().getSpecificIp();
-                targetPort = getEvaluationConfig().getSpecificPort();
-                testTarget();
             }
+        } finally {
+            exitPreparationStep();
+        }
+        LOGGER.info("Finished measurements for {} in {} minutes", targetName, (System.currentTimeMillis() - startTimestamp) / (60 * 1000));
+        ExecutionWatcher.getReference().finishedTask();
+    }
+
+    private void prepareTarget() throws Exception {
+        if (getEvaluationConfig().isManagedTarget()) {
+            long startedAt = System.nanoTime();
+            dockerInstance = prepareNewDockerContainer();
+            registerContainerEvents(dockerInstance);
+            yieldPreparationStep();
+            retrieveContainerIp(dockerInstance);
+            if (getEvaluationConfig().isUseHostNetwork()) {
+                int oldPort = targetPort;
+                dockerInstance.updateInstancePort();
+                targetPort = dockerInstance.getHostInfo().getPort();
+                LOGGER.info("Switched port for {} from {} to {}", targetName, oldPort, targetPort);
+            }
+            // waiting for the container does not hold up measurements
+            exitPreparationStep();
+            if (!waitForContainer(readinessProbe, targetIp, targetPort, startedAt)) {
+                throw new ContainerFailedException();
+            }
+            enterPreparationStep();
+            prepareContainerPool();
+            yieldPreparationStep();
+            handlePortSwitching();
+            yieldPreparationStep();
+        } else {
+            targetIp = getEvaluationConfig().getSpecificIp();
+            targetPort = getEvaluationConfig().getSpecificPort();
+        }
+        scanTarget();
+    }
+
+    private void measureTarget() {
+        executeSubtasks();
+        if (!getEvaluationConfig().isOnlyTestVectors() && subtasks.stream().allMatch(EvaluationSubtask::isCompletedByCheckpoint)) {
+            SubtaskCheckpoint.markTargetFinished(targetName);
+        }
+    }
+
+    /**
+     * @return false if the phase failed, the failure has been reported
+     */
+    private boolean runPhase(TaskPhase phase) {
+        try {
+            phase.run();
+            return true;
         } catch (ContainerFailedException ex) {
             LOGGER.error("Container was unavailable for {}", targetName, ex);
             ExecutionWatcher.getReference().failedContainer(targetName);
@@ -115,40 +234,183 @@ public class EvaluationTask extends TimingDockerTask {
         } catch (Exception ex) {
             LOGGER.error("Evaluation failed unexpected for {}", targetName, ex);
             ExecutionWatcher.getReference().failedUnexpected(targetName);
-        } finally {
-            if (getEvaluationConfig().isManagedTarget() && !getEvaluationConfig().isKeepContainer()) {
-                stopContainter(dockerInstance);
+        }
+        return false;
+    }
+
+    private interface TaskPhase {
+
+        void run() throws Exception;
+    }
+
+    /**
+     * Sets the gate shared by the tasks of a pipeline. Measurement steps of
+     * this task have priority over the preparation steps of other tasks.
+     */
+    public void setMeasurementGate(MeasurementGate measurementGate) {
+        this.measurementGate = measurementGate;
+    }
+
+    /**
+     * Called before a measurement step, waits for a running preparation
+     * step of another task.
+     */
+    public void acquireMeasurementGate() {
+        if (measurementGate != null && !measurementStepActive) {
+            try {
+                measurementGate.enterMeasurement();
+                measurementStepActive = true;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
             }
         }
-        LOGGER.info("Finished measurements for {} in {} minutes", targetName, (System.currentTimeMillis() - startTimestamp) / (60 * 1000));
-        ExecutionWatcher.getReference().finishedTask();
+    }
+
+    public void releaseMeasurementGate() {
+        if (measurementGate != null && measurementStepActive) {
+            measurementStepActive = false;
+            measurementGate.exitMeasurement();
+        }
+    }
+
+    private void enterPreparationStep() throws InterruptedException {
+        if (measurementGate != null && !preparationStepActive) {
+            measurementGate.enterPreparation();
+            preparationStepActive = true;
+        }
+    }
+
+    private void exitPreparationStep() {
+        if (measurementGate != null && preparationStepActive) {
+            preparationStepActive = false;
+            measurementGate.exitPreparation();
+        }
+    }
+
+    /**
+     * Lets waiting measurement steps of other tasks run before the next
+     * preparation step.
+     */
+    private void yieldPreparationStep() throws InterruptedException {
+        if (preparationStepActive) {
+            exitPreparationStep();
+            enterPreparationStep();
+        }
+    }
+
+    /**
+     * Stops the containers of all tasks that are still running. Used when the
+     * evaluator is terminated to avoid orphaned containers.
+     */
+    public static void stopActiveContainers() {
+        for (EvaluationTask task : ACTIVE_TASKS) {
+            List<DockerTlsServerInstance> pooledInstances = task.closeContainerPool();
+            if (!pooledInstances.isEmpty()) {
+                LOGGER.warn("Stopping {} pooled containers of unfinished task {}", pooledInstances.size(), task.getTargetName());
+                pooledInstances.forEach(task::stopContainter);
+            } else if (task.dockerInstance != null) {
+                LOGGER.warn("Stopping container of unfinished task {}", task.getTargetName());
+                task.stopContainter(task.dockerInstance);
+            }
+        }
+    }
+
+    private void prepareContainerPool() {
+        int poolSize = getEvaluationConfig().getContainerPoolSize();
+        if (getEvaluationConfig().getTargetManagement() == DockerTargetManagement.RESTART_CONTAINTER && poolSize > 1) {
+            LOGGER.info("Starting {} additional containers for {}", poolSize - 1, targetName);
+            containerPool = new ContainerPool(targetName, new ContainerPool.PooledContainer(dockerInstance, targetIp), poolSize, this::startPooledContainer, this::restartPooledContainer);
+        }
+    }
+
+    private ContainerPool.PooledContainer startPooledContainer() {
+        long startedAt = System.nanoTime();
+        DockerTlsServerInstance pooledInstance = createDockerInstance(implementation, version, getEvaluationConfig().isUseHostNetwork());
+        pooledInstance.start();
+        registerContainerEvents(pooledInstance);
+        String pooledIp;
+        try {
+            pooledIp = inspectContainerIp(pooledInstance);
+        } catch (ContainerFailedException containerException) {
+            stopContainter(pooledInstance);
+            throw new RuntimeException("Failed to fetch ip of pooled container");
+        }
+        if (!waitForContainer(readinessProbe, pooledIp, targetPort, startedAt)) {
+            stopContainter(pooledInstance);
+            throw new RuntimeException("Pooled container did not become ready");
+        }
+        return new ContainerPool.PooledContainer(pooledInstance, pooledIp);
+    }
+
+    private ContainerPool.PooledContainer restartPooledContainer(ContainerPool.PooledContainer usedContainer) {
+        long startedAt = System.nanoTime();
+        DOCKER.restartContainerCmd(usedContainer.getInstance().getId()).withtTimeout(0).exec();
+        String pooledIp;
+        try {
+            pooledIp = inspectContainerIp(usedContainer.getInstance());
+        } catch (ContainerFailedException containerException) {
+            throw new RuntimeException("Failed to fetch ip of restarted pooled container");
+        }
+        // the first connection to the pooled server will be measured
+        if (!readinessProbe.awaitControlServer(pooledIp, startedAt)) {
+            throw new RuntimeException("Restarted pooled container did not become ready");
+        }
+        ContainerEventListener.getReference().markStarted(usedContainer.getInstance().getId(), inspectStartTime(usedContainer.getInstance()));
+        return new ContainerPool.PooledContainer(usedContainer.getInstance(), pooledIp);
+    }
+
+    /**
+     * @return the instances of all pooled containers or an empty list if no
+     * pool is used
+     */
+    private synchronized List<DockerTlsServerInstance> closeContainerPool() {
+        if (containerPool == null) {
+            return new LinkedList<>();
+        }
+        List<DockerTlsServerInstance> pooledInstances = containerPool.close();
+        containerPool = null;
+        return pooledInstances;
+    }
+
+    private void registerContainerEvents(DockerTlsServerInstance instance) {
+        ContainerEventListener.getReference().register(instance.getId(), inspectStartTime(instance));
+    }
+
+    private void unregisterContainerEvents(List<DockerTlsServerInstance> pooledInstances) {
+        if (dockerInstance != null) {
+            ContainerEventListener.getReference().unregister(dockerInstance.getId());
+        }
+        for (DockerTlsServerInstance pooledInstance : pooledInstances) {
+            ContainerEventListener.getReference().unregister(pooledInstance.getId());
+        }
+    }
+
+    private long inspectStartTime(DockerTlsServerInstance instance) {
+        return ContainerEventListener.parseDockerTime(DOCKER.inspectContainerCmd(instance.getId()).exec().getState().getStartedAt());
     }
 
     private void handlePortSwitching() {
         if (getEvaluationConfig().getTargetManagement() == DockerTargetManagement.PORT_SWITCHING) {
             LOGGER.info("Enabling port switching for target {}", targetName);
-            for (int attempts = 0; attempts < 3 && !isPortSwitchEnabled(); attempts++) {
-                portSwitchEnabled = HttpUtil.enablePortSwitiching(targetIp);
-                if (!isPortSwitchEnabled()) {
-                    pauseFor(500);
-                }
-            }
+            long enabledAt = System.nanoTime();
+            portSwitchEnabled = readinessProbe.retry(targetIp, "enabling port switching", () -> HttpUtil.enablePortSwitiching(targetIp));
             if (!isPortSwitchEnabled()) {
-                LOGGER.error("Failed to enable port switching within {} attempts, future failures to obtain port from Docker will use initial port ({})", PORT_SWITCH_ACTIVATION_ATTEMPTS, targetPort);
+                LOGGER.error("Failed to enable port switching within {} ms, future failures to obtain port from Docker will use initial port ({})", getEvaluationConfig().getReadinessTimeout(), targetPort);
             } else {
-                LOGGER.info("Port switching enabled by go server. Pausing 2 seconds to take effect.");
-                pauseFor(2000);
-                testPortSwitchWorks();
+                LOGGER.info("Port switching enabled by go server. Waiting for the server on the switched port.");
+                testPortSwitchWorks(enabledAt);
+                if (isPortSwitchEnabled()) {
+                    portStateCache = new PortStateCache(targetIp, targetPort, getEvaluationConfig().isPollPort());
+                }
             }
         }
     }
 
-    private void testPortSwitchWorks() {
-        Config connectivityCheckConfig = Config.createConfig();
-        connectivityCheckConfig.getDefaultClientConnection().setHostname(targetIp);
-        connectivityCheckConfig.getDefaultClientConnection().setPort(HttpUtil.getCurrentPort(targetIp, targetPort));
-        ConnectivityChecker checker = new ConnectivityChecker(connectivityCheckConfig.getDefaultClientConnection());
-        if (!checker.isConnectable()) {
+    private void testPortSwitchWorks(long enabledAt) {
+        int[] probedPort = {targetPort};
+        if (!readinessProbe.awaitReady(targetIp, () -> probedPort[0] = HttpUtil.getCurrentPort(targetIp, targetPort), false, enabledAt)) {
+            Config connectivityCheckConfig = Config.createConfig();
+            connectivityCheckConfig.getDefaultClientConnection().setHostname(targetIp);
             connectivityCheckConfig.getDefaultClientConnection().setPort(targetPort);
             ConnectivityChecker initalPortChecker = new ConnectivityChecker(connectivityCheckConfig.getDefaultClientConnection());
             if (initalPortChecker.isConnectable()) {
@@ -158,21 +420,18 @@ public class EvaluationTask extends TimingDockerTask {
                 LOGGER.warn("Failed to reach target {} using requested and default port.", targetName);
             }
         } else {
-            LOGGER.info("Port switiching tested, pausing 2s to allow for server restart before initiating TLS-Scanner.");
-            // if the server crashed here, give it some time to restart before
-            // the server scanner performs its own connectivity check
-            pauseFor(2000);
+            LOGGER.info("Port switiching tested, waiting for server restart before initiating TLS-Scanner.");
+            // connecting again would trigger yet another switch, so only the
+            // control server is asked for the next port; should the server
+            // not listen on it yet, the port cache retries failed connects
+            if (!readinessProbe.awaitPortChange(targetIp, probedPort[0], System.nanoTime())) {
+                LOGGER.warn("Target {} did not switch its port after the test connection. Disabling port switching.", targetName);
+                portSwitchEnabled = false;
+            }
         }
 
     }
 
-    public void pauseFor(long msToWait) {
-        try {
-            Thread.sleep(msToWait);
-        } catch (Exception ignored) {
-        }
-    }
-
     private DockerTlsServerInstance prepareNewDockerContainer() {
         TimingBenchmark.print("Preparing new container");
         DockerTlsServerInstance newDockerInstance = createDockerInstance(implementation, version, getEvaluationConfig().isUseHostNetwork());
@@ -182,7 +441,7 @@ public class EvaluationTask extends TimingDockerTask {
         return newDockerInstance;
     }
 
-    private void testTarget() throws FailedToHandshakeException, NoSubtaskApplicableException {
+    private void scanTarget() throws FailedToHandshakeException, NoSubtaskApplicableException, InterruptedException {
         if(getEvaluationConfig().isEchoTest()) {
             serverReport = new ServerReport(targetIp, targetPort);
             HashSet<CipherSuite> cipherSuiteSet = new HashSet<>();
@@ -194,11 +453,22 @@ public class EvaluationTask extends TimingDockerTask {
             serverReport.setSpeaksProtocol(true);
             serverReport.setIsHandshaking(true);
             serverReport.setConfigProfileIdentifier(DefaultConfigProfile.UNFILTERED.name());
+        } else if (getEvaluationConfig().getScanCache() != null && imageId != null) {
+            ServerReportCache serverReportCache = new ServerReportCache(getEvaluationConfig().getScanCache());
+            String cacheKey = getServerReportCacheKey();
+            serverReport = serverReportCache.load(cacheKey, targetIp, targetPort);
+            if (serverReport != null) {
+                LOGGER.info("Using cached server report for {}", targetName);
+            } else {
+                runServerScan();
+                serverReportCache.store(cacheKey, targetName, serverReport);
+            }
         } else {
             runServerScan();
         }
+        // adjusting the scope may connect to the target
+        yieldPreparationStep();
         subtasks = buildTaskList();
-        executeSubtasks();
     }
 
     @Override
@@ -213,21 +483,31 @@ public class EvaluationTask extends TimingDockerTask {
     }
 
     public void retrieveContainerIp(DockerTlsServerInstance dockerInstance) throws ContainerFailedException {
-        InspectContainerResponse containerInspectResponse = DOCKER.inspectContainerCmd(dockerInstance.getId()).exec();
+        String containerIp = inspectContainerIp(dockerInstance);
+        if (targetIp != null) {
+            HttpUtil.releaseControlClient(targetIp);
+        }
+        targetIp = containerIp;
+    }
+
+    private String inspectContainerIp(DockerTlsServerInstance dockerInstance) throws ContainerFailedException {
         if (getEvaluationConfig().isUseHostNetwork()) {
-            targetIp = "localhost";
-        } else {
-            targetIp = containerInspectResponse.getNetworkSettings().getNetworks().get("bridge").getIpAddress();
+            return "localhost";
         }
-        if (targetIp.isEmpty()) {
+        InspectContainerResponse containerInspectResponse = DOCKER.inspectContainerCmd(dockerInstance.getId()).exec();
+        String containerIp = containerInspectResponse.getNetworkSettings().getNetworks().get("bridge").getIpAddress();
+        if (containerIp == null || containerIp.isEmpty()) {
             throw new ContainerFailedException();
         }
+        return containerIp;
     }
 
     public void executeSubtasks() {
         for (EvaluationSubtask subtask : subtasks) {
             if(getEvaluationConfig().isOnlyTestVectors()) {
                 subtask.testVectors();
+            } else if (getEvaluationConfig().isResume() && subtask.isCompletedByCheckpoint()) {
+                LOGGER.info("Skipping subtask {} for {} as it has already been completed", subtask.getSubtaskName(), targetName);
             } else {
                 EvaluationSubtaskReport report = subtask.evaluate();
                 SubtaskReportWriter.writeReport(report);
@@ -241,21 +521,27 @@ public class EvaluationTask extends TimingDockerTask {
     public void runServerScan() {
         LOGGER.info("Starting TLS-Scanner for {}", targetName);
         ClientDelegate clientDelegate = new ClientDelegate();
-        int dynamicPort = targetPort;
-        if (isPortSwitchEnabled()) {
-            dynamicPort = HttpUtil.getCurrentPort(targetIp, targetPort);
-        }
-        clientDelegate.setHost(targetIp + ":" + dynamicPort);
+        clientDelegate.setHost(targetIp + ":" + getCurrentPort());
         ServerScannerConfig scannerConfig = new ServerScannerConfig(new GeneralDelegate(), clientDelegate);
         scannerConfig.setTimeout(getEvaluationConfig().getTimeout());
-        scannerConfig.setProbes(TlsProbeType.PROTOCOL_VERSION, TlsProbeType.CIPHER_SUITE, TlsProbeType.CCA_SUPPORT, TlsProbeType.CCA_REQUIRED);
+        scannerConfig.setProbes(SCAN_PROBES);
         scannerConfig.setOverallThreads(1);
         scannerConfig.setParallelProbes(1);
         scannerConfig.setConfigSearchCooldown(true);
 
         ParallelExecutor parallelExecutor = new ParallelExecutor(1, 2);
-        if (getEvaluationConfig().additionalContainerActionsRequired()) {
-            parallelExecutor.setDefaultBeforeTransportPreInitCallback(getRestartCallable());
+        Function<State, Integer> restartCallable = getEvaluationConfig().additionalContainerActionsRequired() ? getRestartCallable() : null;
+        if (restartCallable != null || measurementGate != null) {
+            parallelExecutor.setDefaultBeforeTransportPreInitCallback((State state) -> {
+                // each connection of the scanner is a preparation step of its own
+                try {
+                    yieldPreparationStep();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for measurements of other targets");
+                }
+                return restartCallable != null ? restartCallable.apply(state) : 0;
+            });
         }
 
         TlsServerScanner scanner = new TlsServerScanner(scannerConfig, parallelExecutor);
@@ -264,11 +550,22 @@ public class EvaluationTask extends TimingDockerTask {
         parallelExecutor.shutdown();
     }
 
+    /**
+     * @return the key of the cached server report, which covers everything
+     * the scan result depends on
+     */
+    private String getServerReportCacheKey() {
+        return ServerReportCache.createKey(imageId, getAdditionalParameters(implementation, version), Arrays.toString(SCAN_PROBES), String.valueOf(getEvaluationConfig().getTimeout()), String.valueOf(getEvaluationConfig().getTargetManagement()), String.valueOf(getEvaluationConfig().isUseHostNetwork()));
+    }
+
     public Function<State, Integer> getRestartCallable() {
         return (State state) -> {
             switch (getEvaluationConfig().getTargetManagement()) {
                 case RESTART_CONTAINTER:
                     restartContainer();
+                    if (containerPool != null) {
+                        switchToCurrentContainer(state);
+                    }
                     break;
                 case RESTART_SERVER:
                     restartServer();
@@ -284,34 +581,133 @@ public class EvaluationTask extends TimingDockerTask {
     }
 
     private void getSwitchedPort(State state) {
-        int port = HttpUtil.getCurrentPort(targetIp, targetPort);
+        int port = portStateCache.takePort();
         state.getConfig().getDefaultClientConnection().setPort(port);
         state.getTlsContext().getConnection().setPort(port);
         state.getTlsContext().setTransportHandler(TransportHandlerFactory.createTransportHandler(state.getTlsContext().getConnection()));
         ((ClientTcpTransportHandler) state.getTlsContext().getTransportHandler()).setInitializationFailedCallback(() -> {
-            return HttpUtil.getCurrentPort(targetIp, targetPort);
+            return portStateCache.refresh();
         });
     }
 
+    private void switchToCurrentContainer(State state) {
+        if (!targetIp.equals(state.getTlsContext().getConnection().getHostname())) {
+            state.getConfig().getDefaultClientConnection().setHostname(targetIp);
+            state.getTlsContext().getConnection().setHostname(targetIp);
+            state.getTlsContext().setTransportHandler(TransportHandlerFactory.createTransportHandler(state.getTlsContext().getConnection()));
+        }
+    }
+
+    /**
+     * @return the address of the container that is currently measured
+     */
+    public String getCurrentIp() {
+        return targetIp;
+    }
+
+    /**
+     * @return the port the server currently listens on, which is only queried
+     * if port switching is enabled and the last known port is stale
+     */
+    public int getCurrentPort() {
+        if (isPortSwitchEnabled() && portStateCache != null) {
+            return portStateCache.getPort();
+        }
+        return targetPort;
+    }
+
+    /**
+     * Called after each measured handshake since the server switches its port
+     * once the connection is closed.
+     */
+    public void handshakeFinished() {
+        if (portStateCache != null) {
+            portStateCache.handshakeFinished();
+        }
+    }
+
+    private void closePortStateCache() {
+        if (portStateCache != null) {
+            portStateCache.close();
+            portStateCache = null;
+        }
+    }
+
     public void restartServer() {
         TimingBenchmark.print("Killing server");
+        long startedAt = System.nanoTime();
         HttpUtil.killServer(targetIp);
+        // the control server restarts the server process before it answers
+        // again, probing the TLS port would take the connection that is
+        // supposed to be measured
+        if (!readinessProbe.awaitControlServer(targetIp, startedAt)) {
+            throw new RuntimeException("Control server of " + targetName + " did not answer after killing the server");
+        }
         TimingBenchmark.print("Server killed");
     }
 
     public void restartContainer() {
-        TimingBenchmark.print("Restarting container");
-        DOCKER.restartContainerCmd(dockerInstance.getId()).withtTimeout(0).exec();
-        try {
-            retrieveContainerIp(dockerInstance);
-        } catch (ContainerFailedException containerException) {
-            throw new RuntimeException("Failed to fetch port on container restart");
+        if (containerPool != null) {
+            TimingBenchmark.print("Rotating pooled container");
+            ContainerPool.PooledContainer nextContainer = containerPool.rotate();
+            dockerInstance = nextContainer.getInstance();
+            targetIp = nextContainer.getIp();
+            TimingBenchmark.print("Rotated");
+            return;
+        }
+        for (int attempt = 1; ; attempt++) {
+            TimingBenchmark.print("Restarting container");
+            long startedAt = System.nanoTime();
+            DOCKER.restartContainerCmd(dockerInstance.getId()).withtTimeout(0).exec();
+            try {
+                retrieveContainerIp(dockerInstance);
+            } catch (ContainerFailedException containerException) {
+                throw new RuntimeException("Failed to fetch port on container restart");
+            }
+            // the first connection to the restarted server will be measured
+            if (readinessProbe.awaitControlServer(targetIp, startedAt)) {
+                break;
+            } else if (attempt == RESTART_ATTEMPTS) {
+                throw new RuntimeException("Container of " + targetName + " did not become ready within " + RESTART_ATTEMPTS + " restarts");
+            }
+            LOGGER.warn("Restarting container of {} again since it did not become ready", targetName);
+        }
+        ContainerEventListener.getReference().markStarted(dockerInstance.getId(), inspectStartTime(dockerInstance));
+        if (portStateCache != null) {
+            // the restarted container may have a new address and port
+            closePortStateCache();
+            portStateCache = new PortStateCache(targetIp, targetPort, getEvaluationConfig().isPollPort());
         }
         TimingBenchmark.print("Restarted");
     }
     
-    public boolean isContainerAlive() {
-        return DOCKER.inspectContainerCmd(dockerInstance.getId()).exec().getState().getRunning();
+    /**
+     * Restarts the container if docker reported its death since it was last
+     * started. Remote targets are always considered alive.
+     *
+     * @return false if the container died and could not be restarted
+     */
+    public boolean recoverDeadContainer() {
+        if (!getEvaluationConfig().isManagedTarget() || dockerInstance == null || !ContainerEventListener.getReference().isDown(dockerInstance.getId())) {
+            return true;
+        }
+        if (ContainerEventListener.getReference().isOutOfMemory(dockerInstance.getId())) {
+            LOGGER.warn("Restarting container of {} after it ran out of memory", targetName);
+        } else {
+            LOGGER.warn("Restarting dead container of {}", targetName);
+        }
+        try {
+            restartContainer();
+        } catch (RuntimeException ex) {
+            LOGGER.error("Failed to restart dead container of {}", targetName, ex);
+            return false;
+        }
+        if (getEvaluationConfig().getTargetManagement() == DockerTargetManagement.PORT_SWITCHING) {
+            // the restarted control server starts with port switching disabled
+            closePortStateCache();
+            handlePortSwitching();
+        }
+        return true;
     }
     
 
@@ -349,4 +745,8 @@ public class EvaluationTask extends TimingDockerTask {
         return portSwitchEnabled;
     }
 
+    public String getTargetName() {
+        return targetName;
+    }
+
 }
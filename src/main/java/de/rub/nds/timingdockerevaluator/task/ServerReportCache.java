@@ -0,0 +1,174 @@
+package de.rub.nds.timingdockerevaluator.task;
+
+import de.rub.nds.scanner.core.constants.TestResults;
+import de.rub.nds.tlsattacker.core.constants.CipherSuite;
+import de.rub.nds.tlsattacker.core.constants.ProtocolVersion;
+import de.rub.nds.tlsscanner.core.constants.TlsAnalyzedProperty;
+import de.rub.nds.tlsscanner.serverscanner.report.ServerReport;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * On-disk cache of the server report fields the subtasks depend on. The
+ * report of a scan only depends on the image, the parameters the server is
+ * started with, and the scanner settings, so an entry is keyed by a hash of
+ * these. Only reports of targets that could be scanned successfully are
+ * cached.
+ */
+public class ServerReportCache {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    /**
+     * Changes whenever the cached fields change, which invalidates all
+     * existing entries.
+     */
+    private static final String FORMAT_VERSION = "1";
+    private static final String FILE_SUFFIX = ".properties";
+    private static final String TARGET_NAME_KEY = "targetName";
+    private static final String CIPHER_SUITES_KEY = "cipherSuites";
+    private static final String VERSIONS_KEY = "versions";
+    private static final String CCA_SUPPORTED_KEY = "ccaSupported";
+    private static final String CCA_REQUIRED_KEY = "ccaRequired";
+    private static final String CONFIG_PROFILE_KEY = "configProfileIdentifier";
+    private static final String SPEAKS_PROTOCOL_KEY = "speaksProtocol";
+    private static final String HANDSHAKING_KEY = "handshaking";
+    private static final String SEPARATOR = ",";
+
+    private final File directory;
+
+    public ServerReportCache(String directory) {
+        this.directory = new File(directory);
+    }
+
+    /**
+     * @param components everything the scan result depends on, e.g. the image
+     * id, additional server parameters, and scanner settings
+     * @return the hex encoded SHA-256 hash of the components
+     */
+    public static String createKey(String... components) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(FORMAT_VERSION.getBytes(StandardCharsets.UTF_8));
+            for (String component : components) {
+                digest.update((byte) '\n');
+                digest.update(String.valueOf(component).getBytes(StandardCharsets.UTF_8));
+            }
+            StringBuilder key = new StringBuilder();
+            for (byte hashByte : digest.digest()) {
+                key.append(String.format("%02x", hashByte));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    /**
+     * @return a report with the cached fields or null if no valid entry
+     * exists
+     */
+    public ServerReport load(String key, String host, int port) {
+        File entryFile = getEntryFile(key);
+        if (!entryFile.exists()) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream inputStream = new FileInputStream(entryFile)) {
+            properties.load(inputStream);
+        } catch (IOException ex) {
+            LOGGER.warn("Failed to read cached server report {}", entryFile, ex);
+            return null;
+        }
+        try {
+            ServerReport serverReport = new ServerReport(host, port);
+            Set<CipherSuite> cipherSuites = new HashSet<>();
+            for (String cipherSuite : split(properties.getProperty(CIPHER_SUITES_KEY))) {
+                cipherSuites.add(CipherSuite.valueOf(cipherSuite));
+            }
+            serverReport.setCipherSuites(cipherSuites);
+            List<ProtocolVersion> versions = new LinkedList<>();
+            for (String version : split(properties.getProperty(VERSIONS_KEY))) {
+                versions.add(ProtocolVersion.valueOf(version));
+            }
+            serverReport.setVersions(versions);
+            restoreResult(serverReport, TlsAnalyzedProperty.SUPPORTS_CCA, properties.getProperty(CCA_SUPPORTED_KEY));
+            restoreResult(serverReport, TlsAnalyzedProperty.REQUIRES_CCA, properties.getProperty(CCA_REQUIRED_KEY));
+            serverReport.setConfigProfileIdentifier(properties.getProperty(CONFIG_PROFILE_KEY));
+            serverReport.setSpeaksProtocol(Boolean.parseBoolean(properties.getProperty(SPEAKS_PROTOCOL_KEY)));
+            serverReport.setIsHandshaking(Boolean.parseBoolean(properties.getProperty(HANDSHAKING_KEY)));
+            return serverReport;
+        } catch (IllegalArgumentException ex) {
+            LOGGER.warn("Ignoring invalid cached server report {}", entryFile, ex);
+            return null;
+        }
+    }
+
+    public void store(String key, String targetName, ServerReport serverReport) {
+        if (serverReport.getSpeaksProtocol() == null || !serverReport.getSpeaksProtocol() || serverReport.getCipherSuites() == null || serverReport.getConfigProfileIdentifier() == null) {
+            LOGGER.debug("Not caching incomplete server report of {}", targetName);
+            return;
+        }
+        Properties properties = new Properties();
+        properties.setProperty(TARGET_NAME_KEY, targetName);
+        properties.setProperty(CIPHER_SUITES_KEY, serverReport.getCipherSuites().stream().map(CipherSuite::name).sorted().collect(Collectors.joining(SEPARATOR)));
+        if (serverReport.getVersions() != null) {
+            properties.setProperty(VERSIONS_KEY, serverReport.getVersions().stream().map(ProtocolVersion::name).collect(Collectors.joining(SEPARATOR)));
+        }
+        properties.setProperty(CCA_SUPPORTED_KEY, String.valueOf(serverReport.getCcaSupported()));
+        properties.setProperty(CCA_REQUIRED_KEY, String.valueOf(serverReport.getCcaRequired()));
+        properties.setProperty(CONFIG_PROFILE_KEY, serverReport.getConfigProfileIdentifier());
+        properties.setProperty(SPEAKS_PROTOCOL_KEY, String.valueOf(serverReport.getSpeaksProtocol()));
+        properties.setProperty(HANDSHAKING_KEY, String.valueOf(serverReport.getIsHandshaking()));
+        File entryFile = getEntryFile(key);
+        File temporaryFile = new File(entryFile.getPath() + ".tmp");
+        directory.mkdirs();
+        try {
+            try (OutputStream outputStream = new FileOutputStream(temporaryFile)) {
+                properties.store(outputStream, "Server report of " + targetName);
+            }
+            Files.move(temporaryFile.toPath(), entryFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            LOGGER.error("Failed to cache server report {}", entryFile, ex);
+        }
+    }
+
+    private static void restoreResult(ServerReport serverReport, TlsAnalyzedProperty property, String cachedValue) {
+        if ("true".equals(cachedValue)) {
+            serverReport.putResult(property, TestResults.TRUE);
+        } else if ("false".equals(cachedValue)) {
+            serverReport.putResult(property, TestResults.FALSE);
+        }
+    }
+
+    private static List<String> split(String joined) {
+        List<String> values = new LinkedList<>();
+        if (joined != null && !joined.isEmpty()) {
+            for (String value : joined.split(SEPARATOR)) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    private File getEntryFile(String key) {
+        return new File(directory, key + FILE_SUFFIX);
+    }
+}
@@ -5,6 +5,7 @@ import com.github.dockerjava.api.exception.NotModifiedException;
 import de.rub.nds.timingdockerevaluator.config.TimingDockerEvaluatorCommandConfig;
 import static de.rub.nds.timingdockerevaluator.task.EvaluationTask.CONTAINER_NAME_PREFIX;
 import de.rub.nds.timingdockerevaluator.task.exception.InstanceCreationFailedException;
+import de.rub.nds.timingdockerevaluator.util.ReadinessProbe;
 import de.rub.nds.timingdockerevaluator.util.TimingBenchmark;
 import de.rub.nds.tls.subject.TlsImplementationType;
 import de.rub.nds.tls.subject.docker.DockerTlsManagerFactory;
@@ -40,11 +41,13 @@ public abstract class TimingDockerTask {
         }
     }
 
-    public void waitForContainer() {
-        try {
-            Thread.sleep(200);
-        } catch (InterruptedException ex) {
-        }
+    /**
+     * Waits until the TLS server of a started container accepts connections.
+     *
+     * @return false if the server did not become ready in time
+     */
+    public boolean waitForContainer(ReadinessProbe readinessProbe, String host, int port, long startedAt) {
+        return readinessProbe.awaitReady(host, () -> port, getEvaluationConfig().isProbeClientHello(), startedAt);
     }
 
     protected DockerTlsServerInstance createDockerInstance(TlsImplementationType implementation, String version, boolean onHostNetwork) {
@@ -58,7 +61,10 @@ public abstract class TimingDockerTask {
                     return hostConfig;
                 });
             }
-            addAdditionalParameters(implementation, version, targetInstanceBuilder);
+            String additionalParameters = getAdditionalParameters(implementation, version);
+            if (additionalParameters != null) {
+                targetInstanceBuilder.additionalParameters(additionalParameters);
+            }
             DockerTlsServerInstance targetInstance = targetInstanceBuilder.build();
             return targetInstance;
         } catch (DockerException | InterruptedException ex) {
@@ -67,7 +73,11 @@ public abstract class TimingDockerTask {
         }
     }
 
-    private void addAdditionalParameters(TlsImplementationType implementation, String version, DockerTlsManagerFactory.TlsServerInstanceBuilder builder) {
+    /**
+     * @return the parameters the server of the image is started with or null
+     * if no parameters are added
+     */
+    protected String getAdditionalParameters(TlsImplementationType implementation, String version) {
         List<String> additionalParameters = new LinkedList<>();
         if (getEvaluationConfig().getAdditionalParameter() != null) {
             additionalParameters.add(getEvaluationConfig().getAdditionalParameter());
@@ -97,8 +107,9 @@ public abstract class TimingDockerTask {
             }
         }
         
-        if(!additionalParameters.isEmpty()) {
-            builder.additionalParameters(additionalParameters.stream().collect(Collectors.joining(" ")));
+        if(additionalParameters.isEmpty()) {
+            return null;
         }
+        return additionalParameters.stream().collect(Collectors.joining(" "));
     }
 }
@@ -0,0 +1,84 @@
+package de.rub.nds.timingdockerevaluator.task.eval;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Persists results in a background thread. Jobs are handed over using a
+ * bounded queue, hence submitting blocks if the writer falls behind.
+ */
+public class AsyncResultWriter {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final Set<AsyncResultWriter> ACTIVE_WRITERS = ConcurrentHashMap.newKeySet();
+    private static final Runnable END_OF_JOBS = () -> {
+    };
+
+    private final BlockingQueue<Runnable> pendingJobs;
+    private final Thread writerThread;
+    private volatile boolean closed = false;
+
+    public AsyncResultWriter(String name, int queueCapacity) {
+        pendingJobs = new ArrayBlockingQueue<>(queueCapacity);
+        writerThread = new Thread(this::processJobs, "ResultWriter-" + name);
+        writerThread.setDaemon(true);
+        writerThread.start();
+        ACTIVE_WRITERS.add(this);
+    }
+
+    public void submit(Runnable writeJob) throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("Writer has already been closed");
+        }
+        pendingJobs.put(writeJob);
+    }
+
+    /**
+     * Waits until all submitted jobs have been processed and stops the writer
+     * thread.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            pendingJobs.put(END_OF_JOBS);
+            writerThread.join();
+        } catch (InterruptedException ex) {
+            LOGGER.warn("Interrupted while waiting for pending results to be written");
+            Thread.currentThread().interrupt();
+        }
+        ACTIVE_WRITERS.remove(this);
+    }
+
+    public static void flushAll() {
+        for (AsyncResultWriter writer : ACTIVE_WRITERS) {
+            writer.close();
+        }
+    }
+
+    private void processJobs() {
+        while (true) {
+            Runnable job;
+            try {
+                job = pendingJobs.take();
+            } catch (InterruptedException ex) {
+                LOGGER.error("Result writer was interrupted with {} pending jobs", pendingJobs.size());
+                return;
+            }
+            if (job == END_OF_JOBS) {
+                return;
+            }
+            try {
+                job.run();
+            } catch (Exception ex) {
+                LOGGER.error("Failed to write results", ex);
+            }
+        }
+    }
+}
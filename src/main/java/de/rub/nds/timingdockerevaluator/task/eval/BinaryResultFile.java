@@ -0,0 +1,164 @@
+package de.rub.nds.timingdockerevaluator.task.eval;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Compact binary representation of a result file.
+ *
+ * The file starts with a header consisting of a magic value, the format
+ * version, the cipher suite, the protocol version and the names of the
+ * vectors. The header is followed by an arbitrary number of blocks, each
+ * holding the slot of the vector within the file, the number of measurements,
+ * and the zigzag/varint encoded deltas between consecutive measurements.
+ * Blocks are written in the order of the lines of the corresponding CSV file,
+ * which allows extending a file in each step.
+ */
+public class BinaryResultFile {
+
+    private static final int MAGIC = 0x54445442;
+    private static final byte FORMAT_VERSION = 1;
+    private static final int MAX_BLOCK_SIZE = 4096;
+    private static final String[] CSV_PREFIXES = {"BASELINE, ", "MODIFIED, "};
+
+    private BinaryResultFile() {
+    }
+
+    public interface MeasurementVisitor {
+
+        void visitHeader(List<String> vectorNames) throws IOException;
+
+        void visit(int slot, long measured) throws IOException;
+    }
+
+    public static DataOutputStream openForWriting(File file, boolean append, String cipherSuite, String protocolVersion, List<String> vectorNames) throws IOException {
+        boolean writeHeader = !append || !file.exists() || file.length() == 0;
+        file.getParentFile().mkdirs();
+        DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, append)));
+        if (writeHeader) {
+            outputStream.writeInt(MAGIC);
+            outputStream.writeByte(FORMAT_VERSION);
+            outputStream.writeUTF(String.valueOf(cipherSuite));
+            outputStream.writeUTF(String.valueOf(protocolVersion));
+            outputStream.writeByte(vectorNames.size());
+            for (String vectorName : vectorNames) {
+                outputStream.writeUTF(vectorName);
+            }
+        }
+        return outputStream;
+    }
+
+    public static void writeVector(DataOutputStream outputStream, int slot, MeasurementStore measurements, int vector) throws IOException {
+        int written = 0;
+        while (written < measurements.size(vector)) {
+            int blockSize = Math.min(MAX_BLOCK_SIZE, measurements.size(vector) - written);
+            outputStream.writeByte(slot);
+            writeVarLong(outputStream, blockSize);
+            long previous = 0;
+            for (int i = written; i < written + blockSize; i++) {
+                long measured = measurements.get(vector, i);
+                long delta = measured - previous;
+                writeVarLong(outputStream, (delta << 1) ^ (delta >> 63));
+                previous = measured;
+            }
+            written += blockSize;
+        }
+    }
+
+    /**
+     * Streams the measurements of a binary result file into a CSV file using
+     * the same layout as the CSV result files.
+     */
+    public static void convertToCsv(File binaryFile, File csvFile) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(csvFile, false))) {
+            readMeasurements(binaryFile, new MeasurementVisitor() {
+                private boolean singleVector;
+
+                @Override
+                public void visitHeader(List<String> vectorNames) throws IOException {
+                    singleVector = vectorNames.size() == 1;
+                    writer.write(singleVector ? "V" : "V1,V2");
+                    writer.newLine();
+                }
+
+                @Override
+                public void visit(int slot, long measured) throws IOException {
+                    if (!singleVector) {
+                        writer.write(CSV_PREFIXES[Math.min(slot, CSV_PREFIXES.length - 1)]);
+                    }
+                    writer.write(Long.toString(measured));
+                    writer.newLine();
+                }
+            });
+        }
+    }
+
+    public static void readMeasurements(File binaryFile, MeasurementVisitor visitor) throws IOException {
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(binaryFile)))) {
+            visitor.visitHeader(readHeader(inputStream, binaryFile));
+            int slot;
+            while ((slot = inputStream.read()) != -1) {
+                long blockSize = readVarLong(inputStream);
+                long previous = 0;
+                for (long i = 0; i < blockSize; i++) {
+                    long encoded = readVarLong(inputStream);
+                    previous += (encoded >>> 1) ^ -(encoded & 1);
+                    visitor.visit(slot, previous);
+                }
+            }
+        }
+    }
+
+    private static List<String> readHeader(DataInputStream inputStream, File binaryFile) throws IOException {
+        if (inputStream.readInt() != MAGIC) {
+            throw new IOException(binaryFile + " is not a binary result file");
+        }
+        byte formatVersion = inputStream.readByte();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported format version " + formatVersion + " of " + binaryFile);
+        }
+        // cipher suite and protocol version
+        inputStream.readUTF();
+        inputStream.readUTF();
+        int vectorCount = inputStream.readUnsignedByte();
+        List<String> vectorNames = new LinkedList<>();
+        for (int i = 0; i < vectorCount; i++) {
+            vectorNames.add(inputStream.readUTF());
+        }
+        return vectorNames;
+    }
+
+    private static void writeVarLong(DataOutputStream outputStream, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            outputStream.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        outputStream.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream inputStream) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int read = inputStream.read();
+            if (read == -1) {
+                throw new EOFException("Truncated block in binary result file");
+            }
+            value |= (long) (read & 0x7F) << shift;
+            if ((read & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in binary result file");
+    }
+}
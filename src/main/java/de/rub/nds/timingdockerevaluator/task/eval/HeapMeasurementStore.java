@@ -0,0 +1,60 @@
+package de.rub.nds.timingdockerevaluator.task.eval;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps one growable primitive array per vector on the heap.
+ */
+public class HeapMeasurementStore extends MeasurementStore {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 1024;
+
+    private final int initialCapacity;
+    private final long[][] measurements;
+    private final int[] sizes;
+
+    public HeapMeasurementStore(List<String> identifiers, int expectedMeasurementsPerVector) {
+        super(identifiers);
+        this.initialCapacity = Math.max(1, Math.min(expectedMeasurementsPerVector, DEFAULT_INITIAL_CAPACITY));
+        this.measurements = new long[identifiers.size()][];
+        this.sizes = new int[identifiers.size()];
+    }
+
+    @Override
+    public void add(int vectorIndex, long measured) {
+        long[] vectorMeasurements = measurements[vectorIndex];
+        if (vectorMeasurements == null) {
+            vectorMeasurements = new long[initialCapacity];
+            measurements[vectorIndex] = vectorMeasurements;
+        } else if (sizes[vectorIndex] == vectorMeasurements.length) {
+            vectorMeasurements = Arrays.copyOf(vectorMeasurements, vectorMeasurements.length + (vectorMeasurements.length >> 1) + 1);
+            measurements[vectorIndex] = vectorMeasurements;
+        }
+        vectorMeasurements[sizes[vectorIndex]++] = measured;
+    }
+
+    @Override
+    public long get(int vectorIndex, int position) {
+        if (position >= sizes[vectorIndex]) {
+            throw new IndexOutOfBoundsException("Position " + position + " exceeds " + sizes[vectorIndex] + " measurements of " + getIdentifiers().get(vectorIndex));
+        }
+        return measurements[vectorIndex][position];
+    }
+
+    @Override
+    public int size(int vectorIndex) {
+        return sizes[vectorIndex];
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(sizes, 0);
+    }
+
+    @Override
+    public void release() {
+        clear();
+        Arrays.fill(measurements, null);
+    }
+}
@@ -0,0 +1,198 @@
+package de.rub.nds.timingdockerevaluator.task.eval;
+
+/**
+ * Histogram with logarithmically sized buckets in the style of HdrHistogram.
+ * Each power of two range is split into linear sub-buckets such that recorded
+ * values keep the configured number of significant decimal digits. The memory
+ * footprint only depends on the precision and the highest trackable value,
+ * not on the number of recorded values. With the default range of one minute
+ * it is about 2 KB for one significant digit, 15 KB for two, 110 KB for
+ * three, 1.5 MB for four, and 10 MB for five. Values above the highest
+ * trackable value are recorded as the highest trackable value.
+ */
+public class LatencyHistogram {
+
+    /**
+     * One minute in nanoseconds.
+     */
+    public static final long DEFAULT_HIGHEST_TRACKABLE_VALUE = 60_000_000_000L;
+
+    private final int significantDigits;
+    private final long highestTrackableValue;
+    private final int subBucketHalfCountMagnitude;
+    private final int subBucketHalfCount;
+    private final long subBucketMask;
+    private final int leadingZeroCountBase;
+    // a bucket never exceeds the int measurement counters of a subtask
+    private final int[] counts;
+    private long totalCount;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+    private double sum;
+
+    public LatencyHistogram(int significantDigits) {
+        this(significantDigits, DEFAULT_HIGHEST_TRACKABLE_VALUE);
+    }
+
+    public LatencyHistogram(int significantDigits, long highestTrackableValue) {
+        if (significantDigits < 1 || significantDigits > 5) {
+            throw new IllegalArgumentException("Precision must be between 1 and 5 significant digits");
+        } else if (highestTrackableValue < 2) {
+            throw new IllegalArgumentException("Highest trackable value must be at least 2");
+        }
+        this.significantDigits = significantDigits;
+        this.highestTrackableValue = highestTrackableValue;
+        long largestValueWithSingleUnitResolution = 2 * (long) Math.pow(10, significantDigits);
+        int subBucketCountMagnitude = (int) Math.ceil(Math.log(largestValueWithSingleUnitResolution) / Math.log(2));
+        subBucketHalfCountMagnitude = subBucketCountMagnitude - 1;
+        int subBucketCount = 1 << subBucketCountMagnitude;
+        subBucketHalfCount = subBucketCount / 2;
+        subBucketMask = subBucketCount - 1;
+        leadingZeroCountBase = 64 - subBucketHalfCountMagnitude - 1;
+        int bucketCount = 1;
+        long smallestUntrackableValue = subBucketCount;
+        while (smallestUntrackableValue <= highestTrackableValue) {
+            if (smallestUntrackableValue > Long.MAX_VALUE / 2) {
+                bucketCount++;
+                break;
+            }
+            smallestUntrackableValue <<= 1;
+            bucketCount++;
+        }
+        counts = new int[(bucketCount + 1) * subBucketHalfCount];
+    }
+
+    public void record(long value) {
+        long clamped = Math.max(0, Math.min(value, highestTrackableValue));
+        counts[getIndex(clamped)]++;
+        totalCount++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        sum += value;
+    }
+
+    /**
+     * Adds all values of a histogram with the same precision and range.
+     */
+    public void merge(LatencyHistogram other) {
+        if (other.significantDigits != significantDigits || other.highestTrackableValue != highestTrackableValue) {
+            throw new IllegalArgumentException("Histograms with different precision or range cannot be merged");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sum += other.sum;
+    }
+
+    /**
+     * @return the value below which the given share of recorded values lies,
+     * at the precision of the histogram
+     */
+    public long getValueAtQuantile(double quantile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long countAtQuantile = Math.max(1, (long) Math.ceil(Math.min(1, Math.max(0, quantile)) * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= countAtQuantile) {
+                return Math.max(min, Math.min(max, getHighestEquivalentValue(i)));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Encodes the non-empty buckets as comma separated index:count pairs.
+     */
+    public String encodeCounts() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                if (builder.length() > 0) {
+                    builder.append(',');
+                }
+                builder.append(i).append(':').append(counts[i]);
+            }
+        }
+        return builder.toString();
+    }
+
+    public static LatencyHistogram decode(int significantDigits, long highestTrackableValue, String encodedCounts, long min, long max, double sum) {
+        LatencyHistogram histogram = new LatencyHistogram(significantDigits, highestTrackableValue);
+        if (encodedCounts != null && !encodedCounts.isEmpty()) {
+            for (String bucket : encodedCounts.split(",")) {
+                String[] indexAndCount = bucket.split(":");
+                int count = Integer.parseInt(indexAndCount[1]);
+                histogram.counts[Integer.parseInt(indexAndCount[0])] += count;
+                histogram.totalCount += count;
+            }
+        }
+        if (histogram.totalCount > 0) {
+            histogram.min = min;
+            histogram.max = max;
+            histogram.sum = sum;
+        }
+        return histogram;
+    }
+
+    public int getSignificantDigits() {
+        return significantDigits;
+    }
+
+    public long getHighestTrackableValue() {
+        return highestTrackableValue;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getMean() {
+        return totalCount > 0 ? sum / totalCount : Double.NaN;
+    }
+
+    public int getBucketCount() {
+        return counts.length;
+    }
+
+    /**
+     * @return the size of the bucket counts in bytes
+     */
+    public long getFootprint() {
+        return (long) counts.length * Integer.BYTES;
+    }
+
+    private int getIndex(long value) {
+        int bucketIndex = leadingZeroCountBase - Long.numberOfLeadingZeros(value | subBucketMask);
+        int subBucketIndex = (int) (value >>> bucketIndex);
+        return ((bucketIndex + 1) << subBucketHalfCountMagnitude) + (subBucketIndex - subBucketHalfCount);
+    }
+
+    private long getHighestEquivalentValue(int index) {
+        int bucketIndex = (index >> subBucketHalfCountMagnitude) - 1;
+        long subBucketIndex = (index & (subBucketHalfCount - 1)) + subBucketHalfCount;
+        if (bucketIndex < 0) {
+            subBucketIndex -= subBucketHalfCount;
+            bucketIndex = 0;
+        }
+        long lowestEquivalentValue = subBucketIndex << bucketIndex;
+        return lowestEquivalentValue + (1L << bucketIndex) - 1;
+    }
+}
@@ -0,0 +1,139 @@
+package de.rub.nds.timingdockerevaluator.task.eval;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Appends the measurements of each vector to a memory-mapped binary file. The
+ * first 8 bytes of a file hold the number of valid measurements, followed by
+ * the measurements as big endian longs. As the count is updated with every
+ * measurement, the files remain usable if the JVM terminates unexpectedly.
+ */
+public class MappedMeasurementStore extends MeasurementStore {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    public static final String FILE_EXTENSION = ".raw";
+    private static final int HEADER_BYTES = Long.BYTES;
+    private static final int MEASUREMENTS_PER_REGION = 1 << 20;
+    private static final long REGION_BYTES = (long) MEASUREMENTS_PER_REGION * Long.BYTES;
+
+    private final File[] files;
+    private final FileChannel[] channels;
+    private final MappedByteBuffer[] headers;
+    private final List<List<MappedByteBuffer>> regions = new ArrayList<>();
+    private final int[] sizes;
+
+    public MappedMeasurementStore(List<String> identifiers, String directory) {
+        this(identifiers, directory, null);
+    }
+
+    /**
+     * @param resumedSizes number of measurements per vector to keep from
+     * existing spill files, or null to start with empty files
+     */
+    public MappedMeasurementStore(List<String> identifiers, String directory, int[] resumedSizes) {
+        super(identifiers);
+        files = new File[identifiers.size()];
+        channels = new FileChannel[identifiers.size()];
+        headers = new MappedByteBuffer[identifiers.size()];
+        sizes = new int[identifiers.size()];
+        new File(directory).mkdirs();
+        try {
+            for (int i = 0; i < identifiers.size(); i++) {
+                files[i] = new File(directory, identifiers.get(i) + FILE_EXTENSION);
+                if (resumedSizes == null) {
+                    channels[i] = FileChannel.open(files[i].toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                } else {
+                    channels[i] = FileChannel.open(files[i].toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                }
+                headers[i] = channels[i].map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+                regions.add(new ArrayList<>());
+                if (resumedSizes != null) {
+                    long storedSize = Math.max(0, Math.min(headers[i].getLong(0), (channels[i].size() - HEADER_BYTES) / Long.BYTES));
+                    if (storedSize < resumedSizes[i]) {
+                        throw new IOException("Spill file " + files[i] + " holds only " + storedSize + " of " + resumedSizes[i] + " checkpointed measurements");
+                    }
+                    sizes[i] = resumedSizes[i];
+                }
+                headers[i].putLong(0, sizes[i]);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to create spill files in " + directory, ex);
+        }
+    }
+
+    @Override
+    public void add(int vectorIndex, long measured) {
+        int position = sizes[vectorIndex];
+        getRegion(vectorIndex, position / MEASUREMENTS_PER_REGION).putLong((position % MEASUREMENTS_PER_REGION) * Long.BYTES, measured);
+        sizes[vectorIndex] = position + 1;
+        headers[vectorIndex].putLong(0, position + 1);
+    }
+
+    @Override
+    public long get(int vectorIndex, int position) {
+        if (position >= sizes[vectorIndex]) {
+            throw new IndexOutOfBoundsException("Position " + position + " exceeds " + sizes[vectorIndex] + " measurements of " + getIdentifiers().get(vectorIndex));
+        }
+        return getRegion(vectorIndex, position / MEASUREMENTS_PER_REGION).getLong((position % MEASUREMENTS_PER_REGION) * Long.BYTES);
+    }
+
+    @Override
+    public int size(int vectorIndex) {
+        return sizes[vectorIndex];
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = 0;
+            headers[i].putLong(0, 0);
+        }
+    }
+
+    /**
+     * Flushes the mapped regions and truncates each file to its valid
+     * measurements. The files are kept on disk.
+     */
+    @Override
+    public void release() {
+        for (int i = 0; i < channels.length; i++) {
+            if (channels[i] == null || !channels[i].isOpen()) {
+                continue;
+            }
+            try {
+                headers[i].force();
+                for (MappedByteBuffer region : regions.get(i)) {
+                    region.force();
+                }
+                channels[i].truncate(HEADER_BYTES + (long) sizes[i] * Long.BYTES);
+                channels[i].close();
+            } catch (IOException ex) {
+                LOGGER.error("Failed to finalize spill file {}", files[i], ex);
+            }
+            regions.get(i).clear();
+        }
+    }
+
+    private MappedByteBuffer getRegion(int vectorIndex, int regionIndex) {
+        List<MappedByteBuffer> vectorRegions = regions.get(vectorIndex);
+        while (vectorRegions.size() <= regionIndex) {
+            try {
+                long regionStart = HEADER_BYTES + vectorRegions.size() * REGION_BYTES;
+                vectorRegions.add(channels[vectorIndex].map(FileChannel.MapMode.READ_WRITE, regionStart, REGION_BYTES));
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Failed to extend spill file " + files[vectorIndex], ex);
+            }
+        }
+        return vectorRegions.get(regionIndex);
+    }
+}
@@ -0,0 +1,41 @@
+package de.rub.nds.timingdockerevaluator.task.eval;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Uniform sample of bounded size over all measurements of a vector
+ * (reservoir sampling). Unlike the measurement store, the sample is retained
+ * across steps when results are written in each step.
+ */
+public class MeasurementReservoir {
+
+    private final long[] sample;
+    private final SplittableRandom random;
+    private long seen;
+
+    public MeasurementReservoir(int capacity, SplittableRandom random) {
+        this.sample = new long[capacity];
+        this.random = random;
+    }
+
+    public void add(long measured) {
+        if (seen < sample.length) {
+            sample[(int) seen] = measured;
+        } else {
+            long replaced = random.nextLong(seen + 1);
+            if (replaced < sample.length) {
+                sample[(int) replaced] = measured;
+            }
+        }
+        seen++;
+    }
+
+    public long[] getSample() {
+        return Arrays.copyOf(sample, (int) Math.min(seen, sample.length));
+    }
+
+    public long getSeen() {
+        return seen;
+    }
+}
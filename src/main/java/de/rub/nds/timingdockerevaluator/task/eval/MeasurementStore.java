@@ -0,0 +1,54 @@
+package de.rub.nds.timingdockerevaluator.task.eval;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Stores the measurements of all vectors of a subtask indexed by the vector's
+ * position in the identifier list.
+ */
+public abstract class MeasurementStore {
+
+    private final List<String> identifiers;
+
+    public MeasurementStore(List<String> identifiers) {
+        this.identifiers = new LinkedList<>(identifiers);
+    }
+
+    public abstract void add(int vectorIndex, long measured);
+
+    public abstract long get(int vectorIndex, int position);
+
+    public abstract int size(int vectorIndex);
+
+    /**
+     * Discards all measurements but keeps allocated resources for the next
+     * step.
+     */
+    public abstract void clear();
+
+    /**
+     * Frees all resources held for the measurements.
+     */
+    public abstract void release();
+
+    public void add(String identifier, long measured) {
+        add(getIndex(identifier), measured);
+    }
+
+    public int getIndex(String identifier) {
+        int index = identifiers.indexOf(identifier);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown identifier " + identifier);
+        }
+        return index;
+    }
+
+    public List<String> getIdentifiers() {
+        return identifiers;
+    }
+
+    public int getVectorCount() {
+        return identifiers.size();
+    }
+}
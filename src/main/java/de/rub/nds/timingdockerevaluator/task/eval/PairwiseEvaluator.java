@@ -0,0 +1,140 @@
+package de.rub.nds.timingdockerevaluator.task.eval;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the pairwise tests of a subtask on the collected measurements. Each
+ * vector is loaded and sorted once, the pairs are then tested in parallel
+ * using the common fork-join pool. The p-value of a pair is the smallest
+ * p-value of the Mann-Whitney U, Kolmogorov-Smirnov, and decile bootstrap
+ * tests, Bonferroni corrected for the three tests. The pairs are then tested
+ * using Holm's step-down procedure, such that alpha bounds the probability
+ * of reporting any difference between identical vectors.
+ */
+public class PairwiseEvaluator {
+
+    private static final int BOOTSTRAP_ITERATIONS = 1000;
+    private static final int TESTS_PER_PAIR = 3;
+
+    private final List<VectorEvaluationTask> pairs;
+    private final double alpha;
+    private final SplittableRandom random;
+
+    public PairwiseEvaluator(List<VectorEvaluationTask> pairs, double alpha, SplittableRandom random) {
+        this.pairs = pairs;
+        this.alpha = alpha;
+        this.random = random;
+    }
+
+    /**
+     * Lists the vector pairs in the same order as the result files.
+     */
+    public static List<VectorEvaluationTask> planPairs(List<String> identifiers, String baselineIdentifier, boolean compareAllCombinations) {
+        List<VectorEvaluationTask> plannedPairs = new LinkedList<>();
+        for (String identifier : identifiers) {
+            if (compareAllCombinations) {
+                for (String secondIdentifier : identifiers) {
+                    VectorEvaluationTask newTask = new VectorEvaluationTask(identifier, secondIdentifier, null);
+                    if (!secondIdentifier.equals(identifier) && !plannedPairs.stream().anyMatch(newTask::isSamePlan)) {
+                        plannedPairs.add(newTask);
+                    }
+                }
+            } else if (!baselineIdentifier.equals(identifier)) {
+                plannedPairs.add(new VectorEvaluationTask(baselineIdentifier, identifier, null));
+            }
+        }
+        return plannedPairs;
+    }
+
+    public static long[] getSortedMeasurements(MeasurementStore measurements, int vectorIndex) {
+        long[] sorted = new long[measurements.size(vectorIndex)];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = measurements.get(vectorIndex, i);
+        }
+        Arrays.parallelSort(sorted);
+        return sorted;
+    }
+
+    /**
+     * @param sortedMeasurements sorted measurements of each vector
+     * @param sampled whether the measurements are a sample of all collected
+     * measurements
+     */
+    public List<PairwiseTestResult> evaluate(Map<String, long[]> sortedMeasurements, boolean sampled) {
+        List<PairTest> pairTests = new LinkedList<>();
+        for (VectorEvaluationTask pair : pairs) {
+            long[] first = sortedMeasurements.get(pair.getIdentifier1());
+            long[] second = sortedMeasurements.get(pair.getIdentifier2());
+            if (first != null && second != null && first.length > 0 && second.length > 0) {
+                pairTests.add(new PairTest(pair, first, second, sampled, random.split()));
+            }
+        }
+        ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(() -> {
+            ForkJoinTask.invokeAll(pairTests);
+        }));
+        List<PairwiseTestResult> results = pairTests.stream().map(PairTest::join).collect(Collectors.toList());
+        applyHolm(results);
+        return results;
+    }
+
+    private void applyHolm(List<PairwiseTestResult> results) {
+        List<PairwiseTestResult> sortedResults = new ArrayList<>(results);
+        sortedResults.sort(Comparator.comparingDouble(PairwiseEvaluator::getPairPValue));
+        int remainingHypotheses = sortedResults.size();
+        for (PairwiseTestResult result : sortedResults) {
+            if (getPairPValue(result) > alpha / remainingHypotheses) {
+                // Holm stops at the first p-value above its level
+                break;
+            }
+            result.setDifference(true);
+            remainingHypotheses--;
+        }
+    }
+
+    private static double getPairPValue(PairwiseTestResult result) {
+        double minimalPValue = Math.min(result.getMannWhitneyPValue(), Math.min(result.getKolmogorovSmirnovPValue(), result.getBootstrapPValue()));
+        return Math.min(1, minimalPValue * TESTS_PER_PAIR);
+    }
+
+    private class PairTest extends RecursiveTask<PairwiseTestResult> {
+
+        private final VectorEvaluationTask pair;
+        private final long[] first;
+        private final long[] second;
+        private final boolean sampled;
+        private final SplittableRandom pairRandom;
+
+        PairTest(VectorEvaluationTask pair, long[] first, long[] second, boolean sampled, SplittableRandom pairRandom) {
+            this.pair = pair;
+            this.first = first;
+            this.second = second;
+            this.sampled = sampled;
+            this.pairRandom = pairRandom;
+        }
+
+        @Override
+        protected PairwiseTestResult compute() {
+            PairwiseTestResult result = new PairwiseTestResult();
+            result.setIdentifier1(pair.getIdentifier1());
+            result.setIdentifier2(pair.getIdentifier2());
+            result.setSampleSize1(first.length);
+            result.setSampleSize2(second.length);
+            result.setSampled(sampled);
+            result.setMedianDifference(StatisticalTests.quantile(second, 0.5) - StatisticalTests.quantile(first, 0.5));
+            result.setMannWhitneyPValue(StatisticalTests.mannWhitneyPValue(first, second));
+            result.setKolmogorovSmirnovPValue(StatisticalTests.kolmogorovSmirnovPValue(first, second));
+            result.setBootstrapPValue(StatisticalTests.decileBootstrapPValue(first, second, BOOTSTRAP_ITERATIONS, pairRandom));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package de.rub.nds.timingdockerevaluator.task.eval;
+
+/**
+ * Outcome of the statistical tests of a single vector pair as stored in the
+ * subtask report.
+ */
+public class PairwiseTestResult {
+
+    private String identifier1;
+    private String identifier2;
+    private int sampleSize1;
+    private int sampleSize2;
+    private boolean sampled;
+    private double medianDifference;
+    private double mannWhitneyPValue;
+    private double kolmogorovSmirnovPValue;
+    private double bootstrapPValue;
+    private boolean difference;
+
+    public PairwiseTestResult() {
+    }
+
+    public String getIdentifier1() {
+        return identifier1;
+    }
+
+    public void setIdentifier1(String identifier1) {
+        this.identifier1 = identifier1;
+    }
+
+    public String getIdentifier2() {
+        return identifier2;
+    }
+
+    public void setIdentifier2(String identifier2) {
+        this.identifier2 = identifier2;
+    }
+
+    public int getSampleSize1() {
+        return sampleSize1;
+    }
+
+    public void setSampleSize1(int sampleSize1) {
+        this.sampleSize1 = sampleSize1;
+    }
+
+    public int getSampleSize2() {
+        return sampleSize2;
+    }
+
+    public void setSampleSize2(int sampleSize2) {
+        this.sampleSize2 = sampleSize2;
+    }
+
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    public void setSampled(boolean sampled) {
+        this.sampled = sampled;
+    }
+
+    public double getMedianDifference() {
+        return medianDifference;
+    }
+
+    public void setMedianDifference(double medianDifference) {
+        this.medianDifference = medianDifference;
+    }
+
+    public double getMannWhitneyPValue() {
+        return mannWhitneyPValue;
+    }
+
+    public void setMannWhitneyPValue(double mannWhitneyPValue) {
+        this.mannWhitneyPValue = mannWhitneyPValue;
+    }
+
+    public double getKolmogorovSmirnovPValue() {
+        return kolmogorovSmirnovPValue;
+    }
+
+    public void setKolmogorovSmirnovPValue(double kolmogorovSmirnovPValue) {
+        this.kolmogorovSmirnovPValue = kolmogorovSmirnovPValue;
+    }
+
+    public double getBootstrapPValue() {
+        return bootstrapPValue;
+    }
+
+    public void setBootstrapPValue(double bootstrapPValue) {
+        this.bootstrapPValue = bootstrapPValue;
+    }
+
+    public boolean isDifference() {
+        return difference;
+    }
+
+    public void setDifference(boolean difference) {
+        this.difference = difference;
+    }
+}
@@ -0,0 +1,47 @@
+package de.rub.nds.timingdockerevaluator.task.eval;
+
+import de.rub.nds.timingdockerevaluator.util.ResultFileFormat;
+import java.io.File;
+import java.io.IOException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Converts binary result files to CSV files and creates the pair files of
+ * subtasks written using the per-vector layout.
+ */
+public class ResultFileConverter {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private int convertedFiles = 0;
+    private int createdPairFiles = 0;
+
+    public void convert(File path) throws IOException {
+        if (path.isDirectory()) {
+            File[] children = path.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    convert(child);
+                }
+            }
+            File manifest = new File(path, VectorManifest.FILE_NAME);
+            if (manifest.exists()) {
+                LOGGER.info("Creating pair files for {}", path);
+                createdPairFiles += VectorManifest.materializePairFiles(manifest);
+            }
+        } else if (path.getName().endsWith(ResultFileFormat.BINARY.getFileExtension())) {
+            String baseName = path.getName().substring(0, path.getName().length() - ResultFileFormat.BINARY.getFileExtension().length());
+            BinaryResultFile.convertToCsv(path, new File(path.getParentFile(), baseName + ResultFileFormat.CSV.getFileExtension()));
+            convertedFiles++;
+        }
+    }
+
+    public int getConvertedFiles() {
+        return convertedFiles;
+    }
+
+    public int getCreatedPairFiles() {
+        return createdPairFiles;
+    }
+}
@@ -1,13 +1,19 @@
 package de.rub.nds.timingdockerevaluator.task.eval;
 
+import de.rub.nds.timingdockerevaluator.util.ResultFileFormat;
+import de.rub.nds.timingdockerevaluator.util.ResultFileLayout;
+import de.rub.nds.tlsattacker.core.constants.CipherSuite;
+import de.rub.nds.tlsattacker.core.constants.ProtocolVersion;
 import java.io.BufferedWriter;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileWriter;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -19,21 +25,39 @@ public class ResultFileWriter {
     private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd-HH-mm-ss");
     
     private final String baselineIdentifier;
-    private final Map<String, List<Long>> measurements;
+    private final MeasurementStore measurements;
     private final List<VectorEvaluationTask> vectorEvaluationTasks = new LinkedList<>();
     private final boolean compareAllCombinations;
+    private final ResultFileFormat resultFileFormat;
+    private final ResultFileLayout resultFileLayout;
+    private final CipherSuite cipherSuite;
+    private final ProtocolVersion protocolVersion;
     
-    public ResultFileWriter(String baselineIdentifier, Map<String, List<Long>> measurements, boolean compareAllCombinations, String outputFolder) {
+    public ResultFileWriter(String baselineIdentifier, MeasurementStore measurements, boolean compareAllCombinations, String outputFolder) {
+        this(baselineIdentifier, measurements, compareAllCombinations, outputFolder, ResultFileFormat.CSV, ResultFileLayout.PAIRWISE, null, null);
+    }
+    
+    public ResultFileWriter(String baselineIdentifier, MeasurementStore measurements, boolean compareAllCombinations, String outputFolder, ResultFileFormat resultFileFormat, ResultFileLayout resultFileLayout, CipherSuite cipherSuite, ProtocolVersion protocolVersion) {
         this.baselineIdentifier = baselineIdentifier;
         this.measurements = measurements;
         this.compareAllCombinations = compareAllCombinations;
-        this.outputFolder = outputFolder;
+        this.resultFileFormat = resultFileFormat;
+        this.resultFileLayout = resultFileLayout;
+        this.cipherSuite = cipherSuite;
+        this.protocolVersion = protocolVersion;
+        if(outputFolder != null) {
+            ResultFileWriter.outputFolder = outputFolder;
+        }
     }
     
     public void prepareFiles(String subtaskName, String targetName) {
         assureOutputFolderIsSet();
         vectorEvaluationTasks.clear();
-        for(String identifier: measurements.keySet()) {
+        if(resultFileLayout == ResultFileLayout.PER_VECTOR) {
+            writeVectorFiles(subtaskName, targetName, false);
+            return;
+        }
+        for(String identifier: measurements.getIdentifiers()) {
             if(compareAllCombinations) {
                prepareFilesToCompareAllCombinations(subtaskName, targetName, identifier);
             } else {
@@ -46,7 +70,11 @@ public class ResultFileWriter {
     public void prepareExtendingFiles(String subtaskName, String targetName) {
         assureOutputFolderIsSet();
         vectorEvaluationTasks.clear();
-        for(String identifier: measurements.keySet()) {
+        if(resultFileLayout == ResultFileLayout.PER_VECTOR) {
+            writeVectorFiles(subtaskName, targetName, true);
+            return;
+        }
+        for(String identifier: measurements.getIdentifiers()) {
             if(compareAllCombinations) {
                extendFilesToCompareAllCombinations(subtaskName, targetName, identifier);
             } else {
@@ -57,29 +85,85 @@ public class ResultFileWriter {
     }
     
     private void prepareFilesToCompareAllCombinations(String subtaskName, String targetName, String identifier) {
-        for(String secondIdentifier: measurements.keySet()) {
-            String filePath = getBaseResultPath(targetName, subtaskName) + identifier + "vs" + secondIdentifier + ".csv";
+        for(String secondIdentifier: measurements.getIdentifiers()) {
+            String filePath = getBaseResultPath(targetName, subtaskName) + identifier + "vs" + secondIdentifier + resultFileFormat.getFileExtension();
             VectorEvaluationTask newTask = new VectorEvaluationTask(identifier, secondIdentifier, filePath);
             if(!secondIdentifier.equals(identifier) && !vectorEvaluationTasks.stream().anyMatch(newTask::isSamePlan)) {
                 vectorEvaluationTasks.add(newTask);
-                writeComparisonFile(newTask.getFilePath(), measurements.get(newTask.getIdentifier1()), measurements.get(newTask.getIdentifier2()));
+                writeComparisonFile(newTask.getFilePath(), measurements.getIndex(newTask.getIdentifier1()), measurements.getIndex(newTask.getIdentifier2()));
             }
         }
     }
     
     private void prepareFilesToCompareToBaseline(String subtaskName, String targetName, String identifier) {
         if(!baselineIdentifier.equals(identifier)) {
-                String filePath = getBaseResultPath(targetName, subtaskName) + baselineIdentifier + "vs" + identifier + ".csv";
+                String filePath = getBaseResultPath(targetName, subtaskName) + baselineIdentifier + "vs" + identifier + resultFileFormat.getFileExtension();
                 vectorEvaluationTasks.add(new VectorEvaluationTask(baselineIdentifier, identifier, filePath));
-                writeComparisonFile(filePath, measurements.get(baselineIdentifier), measurements.get(identifier));
+                writeComparisonFile(filePath, measurements.getIndex(baselineIdentifier), measurements.getIndex(identifier));
+        }
+    }
+
+    private void writeVectorFiles(String subtaskName, String targetName, boolean append) {
+        String basePath = getBaseResultPath(targetName, subtaskName);
+        for(String identifier: measurements.getIdentifiers()) {
+            if(compareAllCombinations) {
+                for(String secondIdentifier: measurements.getIdentifiers()) {
+                    VectorEvaluationTask newTask = new VectorEvaluationTask(identifier, secondIdentifier, basePath + identifier + "vs" + secondIdentifier + resultFileFormat.getFileExtension());
+                    if(!secondIdentifier.equals(identifier) && !vectorEvaluationTasks.stream().anyMatch(newTask::isSamePlan)) {
+                        vectorEvaluationTasks.add(newTask);
+                    }
+                }
+            } else if(!baselineIdentifier.equals(identifier)) {
+                vectorEvaluationTasks.add(new VectorEvaluationTask(baselineIdentifier, identifier, basePath + baselineIdentifier + "vs" + identifier + resultFileFormat.getFileExtension()));
+            }
+        }
+        try {
+            VectorManifest.write(new File(basePath + VectorManifest.FILE_NAME), vectorEvaluationTasks, resultFileFormat);
+        } catch(Exception ex) {
+            LOGGER.error("Failed to write manifest", ex);
+        }
+        for(int vector = 0; vector < measurements.getVectorCount(); vector++) {
+            writeVectorFile(basePath + measurements.getIdentifiers().get(vector) + resultFileFormat.getFileExtension(), vector, append);
+        }
+    }
+    
+    private void writeVectorFile(String filePath, int vector, boolean append) {
+        File outFile = new File(filePath);
+        if(resultFileFormat == ResultFileFormat.BINARY) {
+            try (DataOutputStream outputStream = BinaryResultFile.openForWriting(outFile, append, String.valueOf(cipherSuite), String.valueOf(protocolVersion), Arrays.asList(measurements.getIdentifiers().get(vector)))) {
+                BinaryResultFile.writeVector(outputStream, 0, measurements, vector);
+            } catch(Exception ex) {
+                LOGGER.error("Failed to write files", ex);
+            }
+            return;
+        }
+        boolean writeHeader = !append || !outFile.exists();
+        outFile.getParentFile().mkdirs();
+        try (BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(outFile, append))) {
+            if(writeHeader) {
+                bufferedWriter.write("V");
+                bufferedWriter.newLine();
+            }
+            writeVector(bufferedWriter, "", vector);
+        } catch(Exception ex) {
+            LOGGER.error("Failed to write files", ex);
         }
     }
 
-    private String getBaseResultPath(String targetName, String subtaskName) {
+    public static String getBaseResultPath(String targetName, String subtaskName) {
+        assureOutputFolderIsSet();
         return getOutputFolder() + "/" + targetName + "/" + subtaskName + "/";
     }
+    
+    public static String getRawMeasurementPath(String targetName, String subtaskName) {
+        return getBaseResultPath(targetName, subtaskName) + "raw/";
+    }
 
-    private void writeComparisonFile(String filePath, List<Long> measurementsVector1, List<Long> measurementsVector2) {
+    private void writeComparisonFile(String filePath, int vector1, int vector2) {
+        if(resultFileFormat == ResultFileFormat.BINARY) {
+            writeBinaryComparisonFile(filePath, vector1, vector2, false);
+            return;
+        }
         File outFile = new File(filePath);
         outFile.getParentFile().mkdirs();
         BufferedWriter bufferedWriter;
@@ -87,41 +171,57 @@ public class ResultFileWriter {
             bufferedWriter = new BufferedWriter(new FileWriter(outFile, false));
             bufferedWriter.write("V1,V2");
             bufferedWriter.newLine();
-            for(Long baselineMeasured: measurementsVector1) {
-                bufferedWriter.write("BASELINE, " + baselineMeasured);
-                bufferedWriter.newLine();
-            }
-            for(Long measured: measurementsVector2) {
-                bufferedWriter.write("MODIFIED, " + measured);
-                bufferedWriter.newLine();
-            }
+            writeVector(bufferedWriter, "BASELINE, ", vector1);
+            writeVector(bufferedWriter, "MODIFIED, ", vector2);
             bufferedWriter.close();
         } catch(Exception ex) {
             LOGGER.error("Failed to write files", ex);
         }
     }
     
+    private void writeBinaryComparisonFile(String filePath, int vector1, int vector2, boolean append) {
+        List<String> vectorNames = Arrays.asList(measurements.getIdentifiers().get(vector1), measurements.getIdentifiers().get(vector2));
+        try (DataOutputStream outputStream = BinaryResultFile.openForWriting(new File(filePath), append, String.valueOf(cipherSuite), String.valueOf(protocolVersion), vectorNames)) {
+            BinaryResultFile.writeVector(outputStream, 0, measurements, vector1);
+            BinaryResultFile.writeVector(outputStream, 1, measurements, vector2);
+        } catch(Exception ex) {
+            LOGGER.error("Failed to write files", ex);
+        }
+    }
+    
+    private void writeVector(BufferedWriter bufferedWriter, String prefix, int vector) throws IOException {
+        for(int i = 0; i < measurements.size(vector); i++) {
+            bufferedWriter.write(prefix);
+            bufferedWriter.write(Long.toString(measurements.get(vector, i)));
+            bufferedWriter.newLine();
+        }
+    }
+    
     private void extendFilesToCompareAllCombinations(String subtaskName, String targetName, String identifier) {
-        for(String secondIdentifier: measurements.keySet()) {
-            String filePath = getBaseResultPath(targetName, subtaskName) + identifier + "vs" + secondIdentifier + ".csv";
+        for(String secondIdentifier: measurements.getIdentifiers()) {
+            String filePath = getBaseResultPath(targetName, subtaskName) + identifier + "vs" + secondIdentifier + resultFileFormat.getFileExtension();
             VectorEvaluationTask newTask = new VectorEvaluationTask(identifier, secondIdentifier, filePath);
             if(!secondIdentifier.equals(identifier) && !vectorEvaluationTasks.stream().anyMatch(newTask::isSamePlan)) {
                 vectorEvaluationTasks.add(newTask);
-                extendComparisonFile(newTask.getFilePath(), measurements.get(newTask.getIdentifier1()), measurements.get(newTask.getIdentifier2()));
+                extendComparisonFile(newTask.getFilePath(), measurements.getIndex(newTask.getIdentifier1()), measurements.getIndex(newTask.getIdentifier2()));
             }
         }
     }
     
     private void extendFilesToCompareToBaseline(String subtaskName, String targetName, String identifier) {
         if(!baselineIdentifier.equals(identifier)) {
-                String filePath = getBaseResultPath(targetName, subtaskName) + baselineIdentifier + "vs" + identifier + ".csv";
+                String filePath = getBaseResultPath(targetName, subtaskName) + baselineIdentifier + "vs" + identifier + resultFileFormat.getFileExtension();
                 vectorEvaluationTasks.add(new VectorEvaluationTask(baselineIdentifier, identifier, filePath));
-                extendComparisonFile(filePath, measurements.get(baselineIdentifier), measurements.get(identifier));
+                extendComparisonFile(filePath, measurements.getIndex(baselineIdentifier), measurements.getIndex(identifier));
         }
     }
     
     
-    private void extendComparisonFile(String filePath, List<Long> measurementsVector1, List<Long> measurementsVector2) {
+    private void extendComparisonFile(String filePath, int vector1, int vector2) {
+        if(resultFileFormat == ResultFileFormat.BINARY) {
+            writeBinaryComparisonFile(filePath, vector1, vector2, true);
+            return;
+        }
         File outFile = new File(filePath);
         boolean writeHeader = false;
         if(!outFile.exists()) {
@@ -135,14 +235,8 @@ public class ResultFileWriter {
                 bufferedWriter.write("V1,V2");
                 bufferedWriter.newLine();
             }
-            for(Long baselineMeasured: measurementsVector1) {
-                bufferedWriter.write("BASELINE, " + baselineMeasured);
-                bufferedWriter.newLine();
-            }
-            for(Long measured: measurementsVector2) {
-                bufferedWriter.write("MODIFIED, " + measured);
-                bufferedWriter.newLine();
-            }
+            writeVector(bufferedWriter, "BASELINE, ", vector1);
+            writeVector(bufferedWriter, "MODIFIED, ", vector2);
             bufferedWriter.close();
         } catch(Exception ex) {
             LOGGER.error("Failed to write files", ex);
@@ -151,7 +245,7 @@ public class ResultFileWriter {
     
     
 
-    public static void assureOutputFolderIsSet() {
+    public static synchronized void assureOutputFolderIsSet() {
         if(getOutputFolder() == null) {
             LocalDateTime now = LocalDateTime.now();
             setOutputFolder("output-" + DATE_TIME_FORMAT.format(now));
@@ -0,0 +1,152 @@
+package de.rub.nds.timingdockerevaluator.task.eval;
+
+import java.util.Arrays;
+
+/**
+ * Statistics of a single vector that are updated with every measurement using
+ * constant memory. Mean and variance follow Welford's algorithm, quantiles are
+ * estimated using the P-square algorithm by Jain and Chlamtac.
+ */
+public class RunningStatistics {
+
+    private long count;
+    private double mean;
+    private double squaredDistanceSum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+    private final P2Quantile lowerDecile = new P2Quantile(0.1);
+    private final P2Quantile median = new P2Quantile(0.5);
+    private final P2Quantile upperDecile = new P2Quantile(0.9);
+
+    public void add(long measured) {
+        count++;
+        double delta = measured - mean;
+        mean += delta / count;
+        squaredDistanceSum += delta * (measured - mean);
+        min = Math.min(min, measured);
+        max = Math.max(max, measured);
+        lowerDecile.add(measured);
+        median.add(measured);
+        upperDecile.add(measured);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return count > 0 ? mean : Double.NaN;
+    }
+
+    public double getVariance() {
+        return count > 1 ? squaredDistanceSum / (count - 1) : 0;
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getLowerDecile() {
+        return lowerDecile.get();
+    }
+
+    public double getMedian() {
+        return median.get();
+    }
+
+    public double getUpperDecile() {
+        return upperDecile.get();
+    }
+
+    /*
+     * Tracks five markers whose heights approximate the minimum, the p/2-,
+     * p-, and (1+p)/2-quantiles, and the maximum of the observations.
+     */
+    private static final class P2Quantile {
+
+        private static final int MARKERS = 5;
+
+        private final double p;
+        private final double[] heights = new double[MARKERS];
+        private final int[] positions = new int[MARKERS];
+        private final double[] desiredPositions;
+        private final double[] increments;
+        private int count;
+
+        P2Quantile(double p) {
+            this.p = p;
+            desiredPositions = new double[]{0, 2 * p, 4 * p, 2 + 2 * p, 4};
+            increments = new double[]{0, p / 2, p, (1 + p) / 2, 1};
+        }
+
+        void add(double observation) {
+            if (count < MARKERS) {
+                heights[count] = observation;
+                positions[count] = count;
+                count++;
+                if (count == MARKERS) {
+                    Arrays.sort(heights);
+                }
+                return;
+            }
+            count++;
+            int cell;
+            if (observation < heights[0]) {
+                heights[0] = observation;
+                cell = 0;
+            } else if (observation >= heights[MARKERS - 1]) {
+                heights[MARKERS - 1] = observation;
+                cell = MARKERS - 2;
+            } else {
+                cell = 0;
+                while (observation >= heights[cell + 1]) {
+                    cell++;
+                }
+            }
+            for (int i = cell + 1; i < MARKERS; i++) {
+                positions[i]++;
+            }
+            for (int i = 0; i < MARKERS; i++) {
+                desiredPositions[i] += increments[i];
+            }
+            for (int i = 1; i < MARKERS - 1; i++) {
+                double offset = desiredPositions[i] - positions[i];
+                if ((offset >= 1 && positions[i + 1] - positions[i] > 1) || (offset <= -1 && positions[i - 1] - positions[i] < -1)) {
+                    int direction = offset > 0 ? 1 : -1;
+                    double candidate = parabolic(i, direction);
+                    if (heights[i - 1] < candidate && candidate < heights[i + 1]) {
+                        heights[i] = candidate;
+                    } else {
+                        heights[i] = heights[i] + direction * (heights[i + direction] - heights[i]) / (positions[i + direction] - positions[i]);
+                    }
+                    positions[i] += direction;
+                }
+            }
+        }
+
+        double get() {
+            if (count == 0) {
+                return Double.NaN;
+            } else if (count < MARKERS) {
+                double[] observed = Arrays.copyOf(heights, count);
+                Arrays.sort(observed);
+                return observed[Math.min(count - 1, (int) (p * count))];
+            }
+            return heights[2];
+        }
+
+        private double parabolic(int i, int direction) {
+            double towardsNext = (positions[i] - positions[i - 1] + direction) * (heights[i + 1] - heights[i]) / (positions[i + 1] - positions[i]);
+            double towardsPrevious = (positions[i + 1] - positions[i] - direction) * (heights[i] - heights[i - 1]) / (positions[i] - positions[i - 1]);
+            return heights[i] + (double) direction / (positions[i + 1] - positions[i - 1]) * (towardsNext + towardsPrevious);
+        }
+    }
+}
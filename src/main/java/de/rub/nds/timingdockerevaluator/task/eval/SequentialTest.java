@@ -0,0 +1,150 @@
+package de.rub.nds.timingdockerevaluator.task.eval;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Group-sequential two-sample Kolmogorov-Smirnov test of the compared vector
+ * pairs that is repeated after each step. The overall significance level is
+ * distributed over the steps using a Lan-DeMets spending function of the
+ * Pocock type, alpha(t) = alpha * ln(1 + (e - 1) * t), where t is the
+ * information fraction, i.e. the share of the final sample sizes that has
+ * been collected. Since the samples are bounded, the whole level is spent
+ * once they are full and later looks may only stop for futility. The level
+ * of a step is shared by the compared pairs using Holm's step-down
+ * procedure, such that the overall level holds for all pairs together and not
+ * only for each pair. Pairs that already showed a difference no longer take
+ * part in the correction. A pair is considered free of differences (futility) if its
+ * p-value exceeds 0.5 once half of the information has been collected.
+ */
+public class SequentialTest {
+
+    private static final double FUTILITY_P_VALUE = 0.5;
+    private static final double FUTILITY_INFORMATION_FRACTION = 0.5;
+
+    public enum Verdict {
+        UNDECIDED,
+        DIFFERENCE,
+        NO_DIFFERENCE
+    }
+
+    private final double alpha;
+    private final List<int[]> pairs = new LinkedList<>();
+    private final Verdict[] verdicts;
+    private final double[] pValues;
+    private double spentAlpha = 0;
+
+    public SequentialTest(double alpha, List<String> identifiers, String baselineIdentifier, boolean compareAllCombinations) {
+        this.alpha = alpha;
+        int baselineIndex = identifiers.indexOf(baselineIdentifier);
+        for (int first = 0; first < identifiers.size(); first++) {
+            for (int second = first + 1; second < identifiers.size(); second++) {
+                if (compareAllCombinations || first == baselineIndex || second == baselineIndex) {
+                    pairs.add(first == baselineIndex || compareAllCombinations ? new int[]{first, second} : new int[]{second, first});
+                }
+            }
+        }
+        verdicts = new Verdict[pairs.size()];
+        Arrays.fill(verdicts, Verdict.UNDECIDED);
+        pValues = new double[pairs.size()];
+        Arrays.fill(pValues, Double.NaN);
+    }
+
+    /**
+     * Tests all undecided pairs using the samples collected so far.
+     *
+     * @param informationFraction share of the final sample sizes that has
+     * been collected
+     */
+    public void analyzeStep(MeasurementReservoir[] reservoirs, double informationFraction) {
+        double fraction = Math.min(1, informationFraction);
+        double cumulativeAlpha = getSpendingBound(fraction);
+        double nominalAlpha = cumulativeAlpha - spentAlpha;
+        spentAlpha = cumulativeAlpha;
+        List<Integer> testedPairs = new LinkedList<>();
+        for (int i = 0; i < pairs.size(); i++) {
+            if (verdicts[i] != Verdict.UNDECIDED) {
+                continue;
+            }
+            long[] first = reservoirs[pairs.get(i)[0]].getSample();
+            long[] second = reservoirs[pairs.get(i)[1]].getSample();
+            if (first.length == 0 || second.length == 0) {
+                continue;
+            }
+            Arrays.sort(first);
+            Arrays.sort(second);
+            pValues[i] = StatisticalTests.kolmogorovSmirnovPValue(first, second);
+            testedPairs.add(i);
+        }
+        testedPairs.sort((pair1, pair2) -> Double.compare(pValues[pair1], pValues[pair2]));
+        int remainingHypotheses = getRemainingHypotheses();
+        boolean rejecting = true;
+        for (int i : testedPairs) {
+            if (rejecting && pValues[i] <= nominalAlpha / remainingHypotheses) {
+                verdicts[i] = Verdict.DIFFERENCE;
+                remainingHypotheses--;
+            } else {
+                // Holm stops at the first p-value above its level
+                rejecting = false;
+                if (fraction >= FUTILITY_INFORMATION_FRACTION && pValues[i] > FUTILITY_P_VALUE) {
+                    verdicts[i] = Verdict.NO_DIFFERENCE;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of pairs that did not show a difference yet, pairs
+     * stopped for futility included
+     */
+    private int getRemainingHypotheses() {
+        return (int) Arrays.stream(verdicts).filter(verdict -> verdict != Verdict.DIFFERENCE).count();
+    }
+
+    /**
+     * Accounts for the significance level spent on measurements of an
+     * interrupted run that are not covered by the samples.
+     */
+    public void startAt(double informationFraction) {
+        spentAlpha = getSpendingBound(Math.min(1, informationFraction));
+    }
+
+    public double getSpendingBound(double informationFraction) {
+        return alpha * Math.log(1 + (Math.E - 1) * informationFraction);
+    }
+
+    public boolean isDecided() {
+        return Arrays.stream(verdicts).noneMatch(Verdict.UNDECIDED::equals);
+    }
+
+    /**
+     * @return the number of undecided pairs each vector takes part in
+     */
+    public int[] getOpenComparisons(int vectorCount) {
+        int[] openComparisons = new int[vectorCount];
+        for (int i = 0; i < pairs.size(); i++) {
+            if (verdicts[i] == Verdict.UNDECIDED) {
+                openComparisons[pairs.get(i)[0]]++;
+                openComparisons[pairs.get(i)[1]]++;
+            }
+        }
+        return openComparisons;
+    }
+
+    public int getPairCount() {
+        return pairs.size();
+    }
+
+    public int[] getPair(int pairIndex) {
+        return pairs.get(pairIndex);
+    }
+
+    public Verdict getVerdict(int pairIndex) {
+        return verdicts[pairIndex];
+    }
+
+    public double getPValue(int pairIndex) {
+        return pValues[pairIndex];
+    }
+}
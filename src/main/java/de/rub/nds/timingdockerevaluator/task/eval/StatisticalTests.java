@@ -0,0 +1,156 @@
+package de.rub.nds.timingdockerevaluator.task.eval;
+
+import java.util.SplittableRandom;
+
+/**
+ * Two-sample tests on sorted measurements. All p-values are two-sided and use
+ * large sample approximations, which hold for the number of measurements we
+ * collect per vector.
+ */
+public class StatisticalTests {
+
+    private static final double[] DECILES = {0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.7, 0.8, 0.9};
+
+    private StatisticalTests() {
+    }
+
+    /**
+     * Asymptotic p-value of the two-sample Kolmogorov-Smirnov statistic.
+     */
+    public static double kolmogorovSmirnovPValue(long[] sortedFirst, long[] sortedSecond) {
+        double distance = 0;
+        int i = 0;
+        int j = 0;
+        while (i < sortedFirst.length && j < sortedSecond.length) {
+            long value = Math.min(sortedFirst[i], sortedSecond[j]);
+            while (i < sortedFirst.length && sortedFirst[i] == value) {
+                i++;
+            }
+            while (j < sortedSecond.length && sortedSecond[j] == value) {
+                j++;
+            }
+            distance = Math.max(distance, Math.abs((double) i / sortedFirst.length - (double) j / sortedSecond.length));
+        }
+        double effectiveSize = Math.sqrt((double) sortedFirst.length * sortedSecond.length / (sortedFirst.length + sortedSecond.length));
+        return kolmogorovDistributionComplement((effectiveSize + 0.12 + 0.11 / effectiveSize) * distance);
+    }
+
+    /**
+     * Mann-Whitney U test using the normal approximation with tie correction.
+     */
+    public static double mannWhitneyPValue(long[] sortedFirst, long[] sortedSecond) {
+        double firstSize = sortedFirst.length;
+        double secondSize = sortedSecond.length;
+        double total = firstSize + secondSize;
+        double firstRankSum = 0;
+        double tieCorrection = 0;
+        int i = 0;
+        int j = 0;
+        long ranked = 0;
+        while (i < sortedFirst.length || j < sortedSecond.length) {
+            long value;
+            if (j >= sortedSecond.length || (i < sortedFirst.length && sortedFirst[i] <= sortedSecond[j])) {
+                value = sortedFirst[i];
+            } else {
+                value = sortedSecond[j];
+            }
+            int tiedInFirst = 0;
+            while (i < sortedFirst.length && sortedFirst[i] == value) {
+                tiedInFirst++;
+                i++;
+            }
+            int tiedInSecond = 0;
+            while (j < sortedSecond.length && sortedSecond[j] == value) {
+                tiedInSecond++;
+                j++;
+            }
+            double tied = tiedInFirst + tiedInSecond;
+            double averageRank = ranked + (tied + 1) / 2;
+            firstRankSum += tiedInFirst * averageRank;
+            tieCorrection += tied * tied * tied - tied;
+            ranked += tiedInFirst + tiedInSecond;
+        }
+        double u = firstRankSum - firstSize * (firstSize + 1) / 2;
+        double meanU = firstSize * secondSize / 2;
+        double varianceU = firstSize * secondSize / 12 * ((total + 1) - tieCorrection / (total * (total - 1)));
+        if (varianceU <= 0) {
+            return 1;
+        }
+        double z = (Math.abs(u - meanU) - 0.5) / Math.sqrt(varianceU);
+        return Math.min(1, complementaryErrorFunction(Math.max(0, z) / Math.sqrt(2)));
+    }
+
+    /**
+     * Bootstrap test of the differences between the deciles of both samples.
+     * Instead of resampling all measurements, the decile of a resample is
+     * drawn as an order statistic of the sorted sample, whose index is
+     * approximately normally distributed around n * q with variance
+     * n * q * (1 - q). The smallest p-value over all deciles is Bonferroni
+     * corrected.
+     */
+    public static double decileBootstrapPValue(long[] sortedFirst, long[] sortedSecond, int iterations, SplittableRandom random) {
+        double minimalPValue = 1;
+        for (double decile : DECILES) {
+            int notAbove = 0;
+            int notBelow = 0;
+            for (int iteration = 0; iteration < iterations; iteration++) {
+                long difference = drawQuantile(sortedFirst, decile, random) - drawQuantile(sortedSecond, decile, random);
+                if (difference <= 0) {
+                    notAbove++;
+                }
+                if (difference >= 0) {
+                    notBelow++;
+                }
+            }
+            double pValue = Math.min(1, 2.0 * Math.min(notAbove, notBelow) / iterations);
+            minimalPValue = Math.min(minimalPValue, pValue);
+        }
+        return Math.min(1, minimalPValue * DECILES.length);
+    }
+
+    public static double quantile(long[] sorted, double quantile) {
+        return sorted[Math.min(sorted.length - 1, (int) (quantile * sorted.length))];
+    }
+
+    private static long drawQuantile(long[] sorted, double quantile, SplittableRandom random) {
+        double deviation = Math.sqrt(sorted.length * quantile * (1 - quantile)) * nextGaussian(random);
+        long index = Math.round(sorted.length * quantile + deviation);
+        return sorted[(int) Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static double nextGaussian(SplittableRandom random) {
+        double first = 1 - random.nextDouble();
+        double second = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(first)) * Math.cos(2 * Math.PI * second);
+    }
+
+    private static double kolmogorovDistributionComplement(double lambda) {
+        if (lambda < 0.2) {
+            return 1;
+        }
+        double sum = 0;
+        double factor = 2;
+        double previousTerm = 0;
+        for (int k = 1; k <= 100; k++) {
+            double term = factor * Math.exp(-2 * k * k * lambda * lambda);
+            sum += term;
+            if (Math.abs(term) <= 0.001 * previousTerm || Math.abs(term) <= 1e-8 * sum) {
+                return Math.max(0, Math.min(1, sum));
+            }
+            factor = -factor;
+            previousTerm = Math.abs(term);
+        }
+        return 1;
+    }
+
+    /*
+     * Chebyshev approximation with a fractional error below 1.2e-7.
+     */
+    private static double complementaryErrorFunction(double x) {
+        double t = 1 / (1 + 0.5 * Math.abs(x));
+        double result = t * Math.exp(-x * x - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418
+                + t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587
+                + t * (-0.82215223 + t * 0.17087277)))))))));
+        return x >= 0 ? result : 2 - result;
+    }
+}
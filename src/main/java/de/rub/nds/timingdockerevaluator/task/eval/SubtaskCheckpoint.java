@@ -0,0 +1,230 @@
+package de.rub.nds.timingdockerevaluator.task.eval;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Progress of a subtask that has been persisted so far. A checkpoint is
+ * written whenever the measurements of a step have been written to the result
+ * files and records the number of persisted measurements per vector, the
+ * selected cipher suite and protocol version, and the size of each result
+ * file at that point. If histograms are kept, the histogram of each vector is
+ * recorded as well, since it cannot be rebuilt from the result files.
+ */
+public class SubtaskCheckpoint {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    public static final String FILE_NAME = "checkpoint.properties";
+    private static final String TARGET_FINISHED_FILE_NAME = "finished";
+    private static final String CIPHER_SUITE_KEY = "cipherSuite";
+    private static final String PROTOCOL_VERSION_KEY = "protocolVersion";
+    private static final String COMPLETED_KEY = "completed";
+    private static final String COUNT_PREFIX = "count.";
+    private static final String OFFSET_PREFIX = "offset.";
+    private static final String HISTOGRAM_PRECISION_KEY = "histogram.precision";
+    private static final String HISTOGRAM_RANGE_KEY = "histogram.range";
+    private static final String HISTOGRAM_COUNTS_PREFIX = "histogram.counts.";
+    private static final String HISTOGRAM_MIN_PREFIX = "histogram.min.";
+    private static final String HISTOGRAM_MAX_PREFIX = "histogram.max.";
+    private static final String HISTOGRAM_SUM_PREFIX = "histogram.sum.";
+
+    private final String cipherSuite;
+    private final String protocolVersion;
+    private final boolean completed;
+    private final Map<String, Integer> measurementsPerVector;
+    private final Map<String, Long> fileOffsets;
+    private final Map<String, LatencyHistogram> histograms;
+
+    public SubtaskCheckpoint(String cipherSuite, String protocolVersion, boolean completed, Map<String, Integer> measurementsPerVector, Map<String, Long> fileOffsets, Map<String, LatencyHistogram> histograms) {
+        this.cipherSuite = cipherSuite;
+        this.protocolVersion = protocolVersion;
+        this.completed = completed;
+        this.measurementsPerVector = measurementsPerVector;
+        this.fileOffsets = fileOffsets;
+        this.histograms = histograms;
+    }
+
+    /**
+     * Creates a checkpoint for the current state of the result files of the
+     * subtask.
+     *
+     * @param persistedHistograms the histograms matching the persisted counts
+     * or null if no histograms are kept
+     */
+    public static SubtaskCheckpoint capture(String targetName, String subtaskName, String cipherSuite, String protocolVersion, boolean completed, List<String> identifiers, int[] persistedCounts, LatencyHistogram[] persistedHistograms) {
+        Map<String, Integer> measurementsPerVector = new HashMap<>();
+        Map<String, LatencyHistogram> histograms = new HashMap<>();
+        for (int i = 0; i < identifiers.size(); i++) {
+            measurementsPerVector.put(identifiers.get(i), persistedCounts[i]);
+            if (persistedHistograms != null) {
+                histograms.put(identifiers.get(i), persistedHistograms[i]);
+            }
+        }
+        Map<String, Long> fileOffsets = new HashMap<>();
+        for (File resultFile : listResultFiles(targetName, subtaskName)) {
+            fileOffsets.put(resultFile.getName(), resultFile.length());
+        }
+        return new SubtaskCheckpoint(cipherSuite, protocolVersion, completed, measurementsPerVector, fileOffsets, histograms);
+    }
+
+    public static SubtaskCheckpoint load(String targetName, String subtaskName) {
+        File checkpointFile = getCheckpointFile(targetName, subtaskName);
+        if (!checkpointFile.exists()) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream inputStream = new FileInputStream(checkpointFile)) {
+            properties.load(inputStream);
+        } catch (IOException ex) {
+            LOGGER.error("Failed to read checkpoint {}", checkpointFile, ex);
+            return null;
+        }
+        Map<String, Integer> measurementsPerVector = new HashMap<>();
+        Map<String, Long> fileOffsets = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(COUNT_PREFIX)) {
+                measurementsPerVector.put(key.substring(COUNT_PREFIX.length()), Integer.parseInt(properties.getProperty(key)));
+            } else if (key.startsWith(OFFSET_PREFIX)) {
+                fileOffsets.put(key.substring(OFFSET_PREFIX.length()), Long.parseLong(properties.getProperty(key)));
+            }
+        }
+        Map<String, LatencyHistogram> histograms = new HashMap<>();
+        if (properties.getProperty(HISTOGRAM_PRECISION_KEY) != null) {
+            int precision = Integer.parseInt(properties.getProperty(HISTOGRAM_PRECISION_KEY));
+            long range = Long.parseLong(properties.getProperty(HISTOGRAM_RANGE_KEY));
+            for (String key : properties.stringPropertyNames()) {
+                if (key.startsWith(HISTOGRAM_COUNTS_PREFIX)) {
+                    String identifier = key.substring(HISTOGRAM_COUNTS_PREFIX.length());
+                    histograms.put(identifier, LatencyHistogram.decode(precision, range, properties.getProperty(key), Long.parseLong(properties.getProperty(HISTOGRAM_MIN_PREFIX + identifier)), Long.parseLong(properties.getProperty(HISTOGRAM_MAX_PREFIX + identifier)), Double.parseDouble(properties.getProperty(HISTOGRAM_SUM_PREFIX + identifier))));
+                }
+            }
+        }
+        return new SubtaskCheckpoint(properties.getProperty(CIPHER_SUITE_KEY), properties.getProperty(PROTOCOL_VERSION_KEY), Boolean.parseBoolean(properties.getProperty(COMPLETED_KEY)), measurementsPerVector, fileOffsets, histograms);
+    }
+
+    public void save(String targetName, String subtaskName) {
+        Properties properties = new Properties();
+        properties.setProperty(CIPHER_SUITE_KEY, cipherSuite);
+        properties.setProperty(PROTOCOL_VERSION_KEY, protocolVersion);
+        properties.setProperty(COMPLETED_KEY, Boolean.toString(completed));
+        measurementsPerVector.forEach((identifier, count) -> properties.setProperty(COUNT_PREFIX + identifier, Integer.toString(count)));
+        fileOffsets.forEach((fileName, offset) -> properties.setProperty(OFFSET_PREFIX + fileName, Long.toString(offset)));
+        histograms.forEach((identifier, histogram) -> {
+            properties.setProperty(HISTOGRAM_PRECISION_KEY, Integer.toString(histogram.getSignificantDigits()));
+            properties.setProperty(HISTOGRAM_RANGE_KEY, Long.toString(histogram.getHighestTrackableValue()));
+            properties.setProperty(HISTOGRAM_COUNTS_PREFIX + identifier, histogram.encodeCounts());
+            properties.setProperty(HISTOGRAM_MIN_PREFIX + identifier, Long.toString(histogram.getMin()));
+            properties.setProperty(HISTOGRAM_MAX_PREFIX + identifier, Long.toString(histogram.getMax()));
+            properties.setProperty(HISTOGRAM_SUM_PREFIX + identifier, Double.toString(histogram.getSum()));
+        });
+        File checkpointFile = getCheckpointFile(targetName, subtaskName);
+        File temporaryFile = new File(checkpointFile.getPath() + ".tmp");
+        checkpointFile.getParentFile().mkdirs();
+        try {
+            try (OutputStream outputStream = new FileOutputStream(temporaryFile)) {
+                properties.store(outputStream, "Checkpoint of " + subtaskName + " for " + targetName);
+            }
+            Files.move(temporaryFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            LOGGER.error("Failed to write checkpoint {}", checkpointFile, ex);
+        }
+    }
+
+    /**
+     * Truncates the result files to the sizes recorded in this checkpoint and
+     * removes result files that were created after the checkpoint.
+     */
+    public void restoreResultFiles(String targetName, String subtaskName) throws IOException {
+        for (File resultFile : listResultFiles(targetName, subtaskName)) {
+            Long offset = fileOffsets.get(resultFile.getName());
+            if (offset == null) {
+                Files.delete(resultFile.toPath());
+            } else if (resultFile.length() > offset) {
+                try (RandomAccessFile randomAccessFile = new RandomAccessFile(resultFile, "rw")) {
+                    randomAccessFile.setLength(offset);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all result files of a subtask that has not been checkpointed.
+     */
+    public static void discardResultFiles(String targetName, String subtaskName) throws IOException {
+        for (File resultFile : listResultFiles(targetName, subtaskName)) {
+            Files.delete(resultFile.toPath());
+        }
+        Files.deleteIfExists(getCheckpointFile(targetName, subtaskName).toPath());
+    }
+
+    public int[] getMeasurementsPerVector(List<String> identifiers) {
+        int[] counts = new int[identifiers.size()];
+        for (int i = 0; i < identifiers.size(); i++) {
+            counts[i] = measurementsPerVector.getOrDefault(identifiers.get(i), 0);
+        }
+        return counts;
+    }
+
+    /**
+     * @return the histogram of the vector at the time of the checkpoint or
+     * null if no histogram has been recorded
+     */
+    public LatencyHistogram getHistogram(String identifier) {
+        return histograms.get(identifier);
+    }
+
+    public boolean matches(String cipherSuite, String protocolVersion) {
+        return String.valueOf(this.cipherSuite).equals(cipherSuite) && String.valueOf(this.protocolVersion).equals(protocolVersion);
+    }
+
+    public String getCipherSuite() {
+        return cipherSuite;
+    }
+
+    public String getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public static boolean isTargetFinished(String targetName) {
+        ResultFileWriter.assureOutputFolderIsSet();
+        return new File(ResultFileWriter.getOutputFolder() + "/" + targetName + "/" + TARGET_FINISHED_FILE_NAME).exists();
+    }
+
+    public static void markTargetFinished(String targetName) {
+        ResultFileWriter.assureOutputFolderIsSet();
+        File marker = new File(ResultFileWriter.getOutputFolder() + "/" + targetName + "/" + TARGET_FINISHED_FILE_NAME);
+        marker.getParentFile().mkdirs();
+        try {
+            marker.createNewFile();
+        } catch (IOException ex) {
+            LOGGER.error("Failed to mark {} as finished", targetName, ex);
+        }
+    }
+
+    private static File getCheckpointFile(String targetName, String subtaskName) {
+        return new File(ResultFileWriter.getBaseResultPath(targetName, subtaskName) + FILE_NAME);
+    }
+
+    private static File[] listResultFiles(String targetName, String subtaskName) {
+        File[] resultFiles = new File(ResultFileWriter.getBaseResultPath(targetName, subtaskName)).listFiles(file -> file.isFile() && !file.getName().startsWith(FILE_NAME));
+        return resultFiles == null ? new File[0] : resultFiles;
+    }
+}
@@ -0,0 +1,135 @@
+package de.rub.nds.timingdockerevaluator.task.eval;
+
+import de.rub.nds.timingdockerevaluator.util.ResultFileFormat;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Describes the compared pairs of a subtask whose measurements have been
+ * written once per vector. Each line lists both vectors, their files, and the
+ * name of the pair file that can be created from them. Fields are quoted as
+ * in RFC 4180 if they contain separators or quotes, since vector identifiers
+ * are not restricted.
+ */
+public class VectorManifest {
+
+    public static final String FILE_NAME = "manifest.csv";
+    private static final String HEADER = "V1,V2,V1File,V2File,PairFile";
+
+    private VectorManifest() {
+    }
+
+    public static void write(File manifestFile, List<VectorEvaluationTask> vectorEvaluationTasks, ResultFileFormat resultFileFormat) throws IOException {
+        manifestFile.getParentFile().mkdirs();
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(manifestFile, false))) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (VectorEvaluationTask task : vectorEvaluationTasks) {
+                writer.write(quote(task.getIdentifier1()) + "," + quote(task.getIdentifier2()) + ","
+                        + quote(task.getIdentifier1() + resultFileFormat.getFileExtension()) + ","
+                        + quote(task.getIdentifier2() + resultFileFormat.getFileExtension()) + ","
+                        + quote(new File(task.getFilePath()).getName()));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Creates the CSV pair files listed in the manifest from the files of the
+     * individual vectors.
+     *
+     * @return the number of created pair files
+     */
+    public static int materializePairFiles(File manifestFile) throws IOException {
+        File directory = manifestFile.getParentFile();
+        int created = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(manifestFile))) {
+            String line = reader.readLine();
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                List<String> columns = parseLine(line);
+                if (columns.size() != 5) {
+                    throw new IOException("Malformed line in " + manifestFile + ": " + line);
+                }
+                String pairFileName = columns.get(4).substring(0, columns.get(4).lastIndexOf('.')) + ResultFileFormat.CSV.getFileExtension();
+                try (BufferedWriter writer = new BufferedWriter(new FileWriter(new File(directory, pairFileName), false))) {
+                    writer.write("V1,V2");
+                    writer.newLine();
+                    copyVector(new File(directory, columns.get(2)), "BASELINE, ", writer);
+                    copyVector(new File(directory, columns.get(3)), "MODIFIED, ", writer);
+                }
+                created++;
+            }
+        }
+        return created;
+    }
+
+    private static String quote(String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+
+    static List<String> parseLine(String line) {
+        List<String> fields = new LinkedList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char current = line.charAt(i);
+            if (quoted) {
+                if (current != '"') {
+                    field.append(current);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (current == '"') {
+                quoted = true;
+            } else if (current == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(current);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static void copyVector(File vectorFile, String prefix, BufferedWriter writer) throws IOException {
+        if (vectorFile.getName().endsWith(ResultFileFormat.BINARY.getFileExtension())) {
+            BinaryResultFile.readMeasurements(vectorFile, new BinaryResultFile.MeasurementVisitor() {
+                @Override
+                public void visitHeader(List<String> vectorNames) {
+                }
+
+                @Override
+                public void visit(int slot, long measured) throws IOException {
+                    writer.write(prefix);
+                    writer.write(Long.toString(measured));
+                    writer.newLine();
+                }
+            });
+        } else {
+            try (BufferedReader reader = new BufferedReader(new FileReader(vectorFile))) {
+                String line = reader.readLine();
+                while ((line = reader.readLine()) != null) {
+                    writer.write(prefix);
+                    writer.write(line);
+                    writer.newLine();
+                }
+            }
+        }
+    }
+}
@@ -2,8 +2,6 @@ package de.rub.nds.timingdockerevaluator.task.subtask;
 
 import de.rub.nds.timingdockerevaluator.config.TimingDockerEvaluatorCommandConfig;
 import de.rub.nds.timingdockerevaluator.task.EvaluationTask;
-import de.rub.nds.timingdockerevaluator.task.exception.UndetectableOracleException;
-import de.rub.nds.timingdockerevaluator.task.exception.WorkflowTraceFailedEarlyException;
 import de.rub.nds.timingdockerevaluator.util.DockerTargetManagement;
 import de.rub.nds.tlsattacker.core.config.Config;
 import de.rub.nds.tlsattacker.core.constants.AlgorithmResolver;
@@ -47,7 +45,7 @@ public class BleichenbacherSubtask extends EvaluationSubtask {
     
     
     private PublicKey publicKey;
-    private List<Pkcs1Vector> vectors;
+    private VectorRegistry<Pkcs1Vector> vectorRegistry = new VectorRegistry<>();
     
     public BleichenbacherSubtask(String targetName, int port, String ip, TimingDockerEvaluatorCommandConfig evaluationConfig, EvaluationTask parentTask) {
         super(SubtaskNames.BLEICHENBACHER.getCamelCaseName(), targetName, port, ip, evaluationConfig, parentTask);
@@ -80,7 +78,11 @@ public class BleichenbacherSubtask extends EvaluationSubtask {
             consideredVectorNames.add("Invalid TLS version in PMS");
             consideredVectorNames.add("No 0x00 in message");
             consideredVectorNames.add("0x00 on the next to last position (|PMS| = 1)");
-            vectors = ((List<Pkcs1Vector>) Pkcs1VectorGenerator.generatePkcs1Vectors((RSAPublicKey) publicKey, BleichenbacherScanType.FAST, getVersion())).stream().filter(vector -> consideredVectorNames.contains(vector.getName())).collect(Collectors.toList());
+            List<Pkcs1Vector> vectors = ((List<Pkcs1Vector>) Pkcs1VectorGenerator.generatePkcs1Vectors((RSAPublicKey) publicKey, BleichenbacherScanType.FAST, getVersion())).stream().filter(vector -> consideredVectorNames.contains(vector.getName())).collect(Collectors.toList());
+            vectorRegistry = new VectorRegistry<>();
+            for (Pkcs1Vector vector : vectors) {
+                vectorRegistry.register(vector.getName().replace(" ", "_"), vector);
+            }
         }
     }
 
@@ -98,8 +100,8 @@ public class BleichenbacherSubtask extends EvaluationSubtask {
     
 
     @Override
-    protected List<String> getSubtaskIdentifiers() {
-        return vectors.stream().map(Pkcs1Vector::getName).map(name -> name.replace(" ", "_")).collect(Collectors.toList());
+    protected VectorRegistry<Pkcs1Vector> getVectorRegistry() {
+        return vectorRegistry;
     }
 
     @Override
@@ -108,12 +110,8 @@ public class BleichenbacherSubtask extends EvaluationSubtask {
     }
 
     @Override
-    protected Long measure(String typeIdentifier) throws WorkflowTraceFailedEarlyException, UndetectableOracleException {
-        Pkcs1Vector selectedVector = resolveVector(typeIdentifier);
-        if(selectedVector == null) {
-            throw new IllegalArgumentException("Was unable to resolve identifier " + typeIdentifier);
-        }
-        
+    protected State prepareState(int vectorId) {
+        Pkcs1Vector selectedVector = vectorRegistry.getPayload(vectorId);
         Config config = getBaseConfig(getVersion(), getCipherSuite());
         final byte[] newRandom = new byte[32];
         random.nextBytes(newRandom);
@@ -121,19 +119,7 @@ public class BleichenbacherSubtask extends EvaluationSubtask {
         final WorkflowTrace workflowTrace = BleichenbacherWorkflowGenerator.generateWorkflow(config, BleichenbacherWorkflowType.CKE_CCS_FIN, selectedVector.getEncryptedValue());
         setSpecificReceiveAction(workflowTrace);
         handleClientAuthentication(workflowTrace, config);
-        final State state = new State(config, workflowTrace);
-        runExecutor(state);
-        return getMeasurement(state);
-    }
-
-    protected Pkcs1Vector resolveVector(String typeIdentifier) {
-        Pkcs1Vector selectedVector = null;
-        for(Pkcs1Vector vector: vectors) {
-            if(vector.getName().replace(" ", "_").equals(typeIdentifier)) {
-                selectedVector = vector;
-            }
-        }
-        return selectedVector;
+        return new State(config, workflowTrace);
     }
 
     
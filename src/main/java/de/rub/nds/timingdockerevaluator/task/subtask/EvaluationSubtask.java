@@ -1,15 +1,27 @@
 package de.rub.nds.timingdockerevaluator.task.subtask;
 
 import de.rub.nds.modifiablevariable.util.Modifiable;
+import de.rub.nds.timingdockerevaluator.task.eval.AsyncResultWriter;
+import de.rub.nds.timingdockerevaluator.task.eval.HeapMeasurementStore;
+import de.rub.nds.timingdockerevaluator.task.eval.LatencyHistogram;
+import de.rub.nds.timingdockerevaluator.task.eval.MappedMeasurementStore;
+import de.rub.nds.timingdockerevaluator.task.eval.MeasurementReservoir;
+import de.rub.nds.timingdockerevaluator.task.eval.MeasurementStore;
+import de.rub.nds.timingdockerevaluator.task.eval.PairwiseEvaluator;
+import de.rub.nds.timingdockerevaluator.task.eval.PairwiseTestResult;
 import de.rub.nds.timingdockerevaluator.task.eval.ResultFileWriter;
+import de.rub.nds.timingdockerevaluator.task.eval.RunningStatistics;
+import de.rub.nds.timingdockerevaluator.task.eval.SequentialTest;
+import de.rub.nds.timingdockerevaluator.task.eval.SubtaskCheckpoint;
+import de.rub.nds.timingdockerevaluator.task.eval.VectorEvaluationTask;
 import de.rub.nds.timingdockerevaluator.config.TimingDockerEvaluatorCommandConfig;
 import de.rub.nds.timingdockerevaluator.task.EvaluationTask;
 import de.rub.nds.timingdockerevaluator.task.exception.UndetectableOracleException;
 import de.rub.nds.timingdockerevaluator.task.exception.WorkflowTraceFailedEarlyException;
 import de.rub.nds.timingdockerevaluator.util.DockerTargetManagement;
-import de.rub.nds.timingdockerevaluator.util.HttpUtil;
 import de.rub.nds.timingdockerevaluator.util.TimingBenchmark;
 import de.rub.nds.tlsattacker.core.config.Config;
+import de.rub.nds.tlsattacker.core.connection.OutboundConnection;
 import de.rub.nds.tlsattacker.core.constants.CipherSuite;
 import de.rub.nds.tlsattacker.core.constants.HandshakeMessageType;
 import de.rub.nds.tlsattacker.core.constants.NamedGroup;
@@ -21,9 +33,15 @@ import de.rub.nds.tlsattacker.core.exceptions.TransportHandlerConnectException;
 import de.rub.nds.tlsattacker.core.exceptions.WorkflowExecutionException;
 import de.rub.nds.tlsattacker.core.protocol.ProtocolMessage;
 import de.rub.nds.tlsattacker.core.protocol.message.AlertMessage;
+import de.rub.nds.tlsattacker.core.protocol.message.ApplicationMessage;
 import de.rub.nds.tlsattacker.core.protocol.message.CertificateMessage;
 import de.rub.nds.tlsattacker.core.protocol.message.CertificateRequestMessage;
 import de.rub.nds.tlsattacker.core.protocol.message.CertificateVerifyMessage;
+import de.rub.nds.tlsattacker.core.protocol.message.ChangeCipherSpecMessage;
+import de.rub.nds.tlsattacker.core.protocol.message.ClientHelloMessage;
+import de.rub.nds.tlsattacker.core.protocol.message.FinishedMessage;
+import de.rub.nds.tlsattacker.core.protocol.message.ServerHelloMessage;
+import de.rub.nds.tlsattacker.core.record.Record;
 import de.rub.nds.tlsattacker.core.state.State;
 import de.rub.nds.tlsattacker.core.workflow.DefaultWorkflowExecutor;
 import de.rub.nds.tlsattacker.core.workflow.WorkflowExecutor;
@@ -33,6 +51,7 @@ import de.rub.nds.tlsattacker.core.workflow.action.GenericReceiveAction;
 import de.rub.nds.tlsattacker.core.workflow.action.ReceiveAction;
 import de.rub.nds.tlsattacker.core.workflow.action.SendAction;
 import de.rub.nds.tlsattacker.core.workflow.action.TlsAction;
+import de.rub.nds.tlsattacker.core.workflow.factory.WorkflowConfigurationFactory;
 import de.rub.nds.tlsattacker.transport.TransportHandlerType;
 import de.rub.nds.tlsattacker.transport.socket.SocketState;
 import de.rub.nds.tlsattacker.transport.tcp.ClientTcpTransportHandler;
@@ -42,28 +61,51 @@ import de.rub.nds.tlsscanner.serverscanner.report.ServerReport;
 import de.rub.nds.tlsscanner.serverscanner.selector.ConfigFilter;
 import de.rub.nds.tlsscanner.serverscanner.selector.ConfigFilterProfile;
 import de.rub.nds.tlsscanner.serverscanner.selector.DefaultConfigProfile;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import sun.reflect.ReflectionFactory;
 
 public abstract class EvaluationSubtask {
     
-    private final static Random notReallyRandom = new Random(System.currentTimeMillis());
     protected static final Logger LOGGER = LogManager.getLogger();
     private static final int MAX_FAILURES_IN_A_ROW = 30;
     private static final int UNDETECTABLE_LIMIT = 150;
     private static final int MAX_UNREACHABLE_IN_A_ROW_BEFORE_RESTART = 5;
+    private static final int EARLY_STOP_SAMPLE_SIZE = 10000;
+    private static final double ADAPTIVE_MINIMUM_SHARE = 0.2;
+    private static final int MAX_RESUMPTION_FAILURES_IN_A_ROW = 5;
+    private static final Set<EvaluationSubtask> ACTIVE_SUBTASKS = ConcurrentHashMap.newKeySet();
+    private static final List<Field> CONFIG_FIELDS = getConfigFields();
+    private static final Constructor<?> CONFIG_ALLOCATOR = getConfigAllocator();
 
-    private final Map<String, List<Long>> runningMeasurements = new HashMap<>();
-    private final Map<String, List<Long>> finishedMeasurements = new HashMap<>();
+    private MeasurementStore runningMeasurements;
+    private AsyncResultWriter asyncResultWriter;
+    private BlockingQueue<MeasurementStore> freeMeasurementStores;
+    private int[] measurementsPerVector;
+    private RunningStatistics[] runningStatistics;
+    private MeasurementReservoir[] measurementReservoirs;
+    private LatencyHistogram[] latencyHistograms;
+    private boolean resumedFromCheckpoint;
     protected int measurementsDone;
     protected int nextMaximum;
     private final String subtaskName;
@@ -83,6 +125,19 @@ public abstract class EvaluationSubtask {
     private ServerReport serverReport;
     private boolean switchedToRestarting = false;
 
+    private Config baseConfigPrototype;
+    private ProtocolVersion prototypeVersion;
+    private CipherSuite prototypeCipherSuite;
+
+    // guards the measurements of the current step against the shutdown hook
+    private final Object stepLock = new Object();
+    private boolean stepOpen = false;
+    private boolean persistedOnShutdown = false;
+
+    private volatile ResumableSession resumableSession;
+    private volatile boolean sessionResumptionFailed = false;
+    private int resumptionFailuresInARow = 0;
+
     public EvaluationSubtask(String taskName, String targetName, int port, String ip, TimingDockerEvaluatorCommandConfig evaluationConfig, EvaluationTask parentTask) {
         this.subtaskName = taskName;
         this.targetName = targetName;
@@ -99,114 +154,589 @@ public abstract class EvaluationSubtask {
 
     public void adjustScope(ServerReport serverReport) {
         this.serverReport = serverReport;
+        synchronized (this) {
+            baseConfigPrototype = null;
+        }
     }
     
     public void bloat() {
         List<String> subtaskIdentifiers = prepareSubtask();
         Random soRandom = new Random();
-        for(String identifier : subtaskIdentifiers) {
+        for(int vectorId = 0; vectorId < subtaskIdentifiers.size(); vectorId++) {
             for(int i = 0; i < evaluationConfig.getTotalMeasurements(); i++) {
-                addMeasurement(identifier, soRandom.nextLong());
+                addMeasurement(vectorId, soRandom.nextLong());
             }
         }
     }
 
     public EvaluationSubtaskReport evaluate() {
+        ACTIVE_SUBTASKS.add(this);
+        try {
+            return evaluateSteps();
+        } finally {
+            ACTIVE_SUBTASKS.remove(this);
+        }
+    }
+
+    /**
+     * Persists the measurements of the steps that are currently running and
+     * checkpoints them, such that an evaluator that is terminated continues
+     * from there with -resume. Measurements arriving afterwards are
+     * discarded.
+     */
+    public static void persistActiveSubtasks() {
+        for (EvaluationSubtask subtask : ACTIVE_SUBTASKS) {
+            subtask.persistPartialStep();
+        }
+    }
+
+    private EvaluationSubtaskReport evaluateSteps() {
         LOGGER.info("Starting evaluation of {} - Target: {}", getSubtaskName(), getTargetName());
-        List<String> subtaskIdentifiers = prepareSubtask();
+        List<String> subtaskIdentifiers = prepareSubtask(evaluationConfig.isResume());
         LOGGER.info("Subtask {} for {} has {} identifiers", getSubtaskName(), getTargetName(), subtaskIdentifiers.size());
         LOGGER.info("Subtask {} will use cipher suite {} in version {} for {}", getSubtaskName(), getCipherSuite(), getVersion(), getTargetName());
         String baselineIdentifier = getBaselineIdentifier();
-        boolean keepMeasuring = true;
-        do {
-            int[] executionPlan = getExecutionPlan(subtaskIdentifiers.size(), evaluationConfig.getMeasurementsPerStep());
+        if(isWriteBehindEnabled()) {
+            asyncResultWriter = new AsyncResultWriter(getTargetName() + "-" + getSubtaskName(), 1);
+            freeMeasurementStores = new ArrayBlockingQueue<>(1);
+            freeMeasurementStores.add(new HeapMeasurementStore(subtaskIdentifiers, evaluationConfig.getMeasurementsPerStep()));
+        }
+        int resumedMeasurements = measurementsDone;
+        int plannedMeasurements = evaluationConfig.getTotalMeasurements() * subtaskIdentifiers.size();
+        SequentialTest sequentialTest = null;
+        if (evaluationConfig.isEarlyStop()) {
+            sequentialTest = new SequentialTest(evaluationConfig.getEarlyStopAlpha(), subtaskIdentifiers, baselineIdentifier, isCompareAllVectorCombinations());
+            sequentialTest.startAt(getInformationFraction());
+        }
+        long planSeed = evaluationConfig.getPlanSeed() != null ? evaluationConfig.getPlanSeed() : new SplittableRandom().nextLong();
+        LOGGER.info("Subtask {} for {} uses plan seed {}", getSubtaskName(), getTargetName(), planSeed);
+        SplittableRandom planRandom = new SplittableRandom(planSeed);
+        boolean keepMeasuring = measurementsDone < plannedMeasurements;
+        while (keepMeasuring) {
+            ExecutionPlan executionPlan;
+            if (evaluationConfig.isAdaptive()) {
+                executionPlan = new ExecutionPlan(getAdaptiveAllocation(subtaskIdentifiers, baselineIdentifier, sequentialTest), planRandom.nextLong());
+            } else {
+                executionPlan = ExecutionPlan.balanced(subtaskIdentifiers.size(), evaluationConfig.getMeasurementsPerStep(), planRandom.nextLong());
+            }
             int failedInARow = 0;
             int unreachableInARow = 0;
-            for (int i = 0; i < executionPlan.length;) {
-                int nextIndentifier = executionPlan[i];
-                printProgress(i, subtaskIdentifiers.size());
-                try {
-                    TimingBenchmark.print("Starting next measurement");
-                    Long newMeasurement = measure(subtaskIdentifiers.get(nextIndentifier));
-                    TimingBenchmark.print("Obtained measurement");
-                    addMeasurement(subtaskIdentifiers.get(nextIndentifier), newMeasurement);
-                    i++;
-                    measurementsDone++;
-                    failedInARow = 0;
-                    unreachableInARow = 0;
-                } catch (WorkflowTraceFailedEarlyException ex) {
-                    failedInARow++;
-                    report.failedEarly();
-                    LOGGER.error("WorkflowTrace failed early for {} - Target: {} will retry", getSubtaskName(), getTargetName());
-                } catch (UndetectableOracleException ex) {
-                    failedInARow++;
-                    report.undetectableOracle(subtaskIdentifiers.get(nextIndentifier));
-                    LOGGER.warn("Target {} send no alert and did not close for vector {} of {}", getTargetName(), subtaskIdentifiers.get(nextIndentifier), getSubtaskName());
-                } catch (TransportHandlerConnectException connectException) {
-                    unreachableInARow++;
-                    failedInARow++;
-                    LOGGER.error("Target {} was unreachable using {}:{} - {}", getTargetName(), targetIp, targetPort, connectException);
-                    if (unreachableInARow == MAX_UNREACHABLE_IN_A_ROW_BEFORE_RESTART && (evaluationConfig.getTargetManagement() == DockerTargetManagement.RESTART_CONTAINTER || evaluationConfig.getTargetManagement() == DockerTargetManagement.RESTART_SERVER)) {
-                        LOGGER.warn("Failed to reach {} {} times - switching to restarting mode", getTargetName(), MAX_UNREACHABLE_IN_A_ROW_BEFORE_RESTART);
-                        switchedToRestarting = true;
-                    }
-                } catch (Exception ex) {
-                    failedInARow++;
-                    report.genericFailure();
-                    LOGGER.error("Failed to measure {} - Target: {} will retry", getSubtaskName(), getTargetName(), ex);
+            openStep();
+            // preparing the next target of a pipeline waits until this step is measured
+            parentTask.acquireMeasurementGate();
+            StatePreparer statePreparer = null;
+            boolean aborted = false;
+            try {
+                if (evaluationConfig.getPrepareAhead() > 0) {
+                    statePreparer = new StatePreparer(getTargetName() + "-" + getSubtaskName(), executionPlan, evaluationConfig.getPrepareAhead(), this::prepareState);
                 }
+                // retries of a position prepare their state in this thread
+                int lastPreparedPosition = -1;
+                for (int i = 0; i < executionPlan.size();) {
+                    int nextIndentifier = executionPlan.getVector(i);
+                    printProgress(i, subtaskIdentifiers.size(), resumedMeasurements);
+                    if (!parentTask.recoverDeadContainer()) {
+                        LOGGER.error("Measuring aborted since the container died and could not be restarted - Subtask {} - Target: {}", getSubtaskName(), getTargetName());
+                        aborted = true;
+                        break;
+                    }
+                    try {
+                        State preparedState = null;
+                        if (statePreparer != null && lastPreparedPosition < i) {
+                            lastPreparedPosition = i;
+                            preparedState = statePreparer.take(i);
+                        }
+                        TimingBenchmark.print("Starting next measurement");
+                        Long newMeasurement = preparedState != null ? measureState(preparedState) : measure(nextIndentifier);
+                        TimingBenchmark.print("Obtained measurement");
+                        addMeasurement(nextIndentifier, newMeasurement);
+                        i++;
+                        measurementsDone++;
+                        failedInARow = 0;
+                        unreachableInARow = 0;
+                    } catch (WorkflowTraceFailedEarlyException ex) {
+                        failedInARow++;
+                        report.failedEarly();
+                        LOGGER.error("WorkflowTrace failed early for {} - Target: {} will retry", getSubtaskName(), getTargetName());
+                    } catch (UndetectableOracleException ex) {
+                        failedInARow++;
+                        report.undetectableOracle(subtaskIdentifiers.get(nextIndentifier));
+                        LOGGER.warn("Target {} send no alert and did not close for vector {} of {}", getTargetName(), subtaskIdentifiers.get(nextIndentifier), getSubtaskName());
+                    } catch (InterruptedException ex) {
+                        LOGGER.warn("Interrupted while waiting for a prepared state - Subtask {} - Target: {}", getSubtaskName(), getTargetName());
+                        Thread.currentThread().interrupt();
+                        aborted = true;
+                        break;
+                    } catch (TransportHandlerConnectException connectException) {
+                        unreachableInARow++;
+                        failedInARow++;
+                        LOGGER.error("Target {} was unreachable using {}:{} - {}", getTargetName(), targetIp, targetPort, connectException);
+                        if (unreachableInARow == MAX_UNREACHABLE_IN_A_ROW_BEFORE_RESTART && (evaluationConfig.getTargetManagement() == DockerTargetManagement.RESTART_CONTAINTER || evaluationConfig.getTargetManagement() == DockerTargetManagement.RESTART_SERVER)) {
+                            LOGGER.warn("Failed to reach {} {} times - switching to restarting mode", getTargetName(), MAX_UNREACHABLE_IN_A_ROW_BEFORE_RESTART);
+                            switchedToRestarting = true;
+                        }
+                    } catch (Exception ex) {
+                        failedInARow++;
+                        report.genericFailure();
+                        LOGGER.error("Failed to measure {} - Target: {} will retry", getSubtaskName(), getTargetName(), ex);
+                    }
 
-                if (failedInARow == MAX_FAILURES_IN_A_ROW && !evaluationConfig.isNeverStop()) {
-                    LOGGER.error("Measuring aborted due to frequent failures - Subtask {} - Target: {}", getSubtaskName(), getTargetName());
-                    report.setFailed(true);
-                    return report;
-                } else if (report.getUndetectableCount() > UNDETECTABLE_LIMIT && !evaluationConfig.isNeverStop()) {
-                    LOGGER.error("Measuring aborted since socket was {} times not closed and no alert was sent - Subtask {} - Target: {}", UNDETECTABLE_LIMIT, getSubtaskName(), getTargetName());
-                    report.setFailed(true);
-                    report.setUndetectable(true);
-                    return report;
-                } else if(failedInARow > MAX_FAILURES_IN_A_ROW / 2 || quickRestartTriggered(failedInARow, unreachableInARow)) {
-                    LOGGER.warn("So far, there have been {} consecutive failures.", failedInARow);
-                    if(evaluationConfig.isManagedTarget()) {
-                        LOGGER.warn("Attempting to restart container.");
-                        parentTask.restartContainer();
+                    if (failedInARow == MAX_FAILURES_IN_A_ROW && !evaluationConfig.isNeverStop()) {
+                        LOGGER.error("Measuring aborted due to frequent failures - Subtask {} - Target: {}", getSubtaskName(), getTargetName());
+                        aborted = true;
+                        break;
+                    } else if (report.getUndetectableCount() > UNDETECTABLE_LIMIT && !evaluationConfig.isNeverStop()) {
+                        LOGGER.error("Measuring aborted since socket was {} times not closed and no alert was sent - Subtask {} - Target: {}", UNDETECTABLE_LIMIT, getSubtaskName(), getTargetName());
+                        report.setUndetectable(true);
+                        aborted = true;
+                        break;
+                    } else if(failedInARow > MAX_FAILURES_IN_A_ROW / 2 || quickRestartTriggered(failedInARow, unreachableInARow)) {
+                        LOGGER.warn("So far, there have been {} consecutive failures.", failedInARow);
+                        if(evaluationConfig.isManagedTarget()) {
+                            LOGGER.warn("Attempting to restart container.");
+                            try {
+                                parentTask.restartContainer();
+                            } catch (RuntimeException ex) {
+                                LOGGER.error("Failed to restart container of {}", getTargetName(), ex);
+                            }
+                        }
                     }
                 }
+            } finally {
+                closeStatePreparer(statePreparer);
+                parentTask.releaseMeasurementGate();
             }
-            LOGGER.info("Subtask {} completed {} measurements for {}", getSubtaskName(), measurementsDone, getTargetName());
-            ResultFileWriter scriptManager = new ResultFileWriter(baselineIdentifier, runningMeasurements, isCompareAllVectorCombinations(), evaluationConfig.getOutputDirectory());
-            if(evaluationConfig.isWriteInEachStep()) {
-                LOGGER.info("Writing sub results for subtask {}", getSubtaskName());
-                scriptManager.prepareExtendingFiles(getSubtaskName(), getTargetName());
-                resetMeasurements();
+            if (aborted) {
+                persistAbortedStep(baselineIdentifier);
             } else {
-               scriptManager.prepareFiles(getSubtaskName(), getTargetName()); 
+                LOGGER.info("Subtask {} completed {} measurements for {}", getSubtaskName(), measurementsDone, getTargetName());
+                if (!completeStep(baselineIdentifier)) {
+                    LOGGER.warn("Subtask {} for {} stops since its measurements have been persisted on shutdown", getSubtaskName(), getTargetName());
+                    aborted = true;
+                }
+            }
+            if (aborted) {
+                report.setFailed(true);
+                finishMeasurements();
+                return report;
             }
-            if (subtaskIdentifiers.size() <= 1 || measurementsDone >= evaluationConfig.getTotalMeasurements() * subtaskIdentifiers.size()) {
+            if (subtaskIdentifiers.size() <= 1) {
+                keepMeasuring = false;
+            } else if (sequentialTest != null && isDecidedEarly(sequentialTest, plannedMeasurements)) {
+                keepMeasuring = false;
+                report.setStoppedEarly(measurementsDone < plannedMeasurements);
+            } else if (measurementsDone >= plannedMeasurements) {
+                // the final look has been analyzed above
                 keepMeasuring = false;
             }
-        } while (keepMeasuring);
+        }
+        if (sequentialTest != null) {
+            recordSequentialTestFindings(sequentialTest, subtaskIdentifiers);
+        }
+        if(isSpilling()) {
+            LOGGER.info("Writing results from spill files for subtask {}", getSubtaskName());
+            createResultFileWriter(baselineIdentifier).prepareFiles(getSubtaskName(), getTargetName());
+        }
+        if(evaluationConfig.isEvaluate()) {
+            evaluatePairs(subtaskIdentifiers, baselineIdentifier, planSeed);
+        }
         report.taskEnded();
         // results have been written, remove them from RAM
-        resetMeasurements();
+        finishMeasurements();
+        saveCheckpoint(measurementsPerVector, true);
         return report;
     }
 
+    /*
+     * Keeps the budget of a step but shifts measurements towards vectors with
+     * a high variance that still take part in undecided comparisons.
+     */
+    private int[] getAdaptiveAllocation(List<String> subtaskIdentifiers, String baselineIdentifier, SequentialTest sequentialTest) {
+        int[] openComparisons;
+        if (sequentialTest != null) {
+            openComparisons = sequentialTest.getOpenComparisons(subtaskIdentifiers.size());
+        } else {
+            openComparisons = new int[subtaskIdentifiers.size()];
+            VectorRegistry<?> vectorRegistry = getVectorRegistry();
+            for (VectorEvaluationTask pair : PairwiseEvaluator.planPairs(subtaskIdentifiers, baselineIdentifier, isCompareAllVectorCombinations())) {
+                openComparisons[vectorRegistry.getId(pair.getIdentifier1())]++;
+                openComparisons[vectorRegistry.getId(pair.getIdentifier2())]++;
+            }
+        }
+        double[] standardDeviations = new double[subtaskIdentifiers.size()];
+        for (int i = 0; i < standardDeviations.length; i++) {
+            standardDeviations[i] = runningStatistics[i].getStandardDeviation();
+        }
+        int[] allocation = new SampleAllocator(ADAPTIVE_MINIMUM_SHARE).allocate(subtaskIdentifiers.size() * evaluationConfig.getMeasurementsPerStep(), standardDeviations, openComparisons);
+        LOGGER.info("Allocated measurements of next step for {} of {}: {}", getSubtaskName(), getTargetName(), Arrays.toString(allocation));
+        return allocation;
+    }
+
+    private void openStep() {
+        synchronized (stepLock) {
+            stepOpen = !persistedOnShutdown;
+        }
+    }
+
+    /**
+     * Persists the measurements of the step and checkpoints them.
+     *
+     * @return false if the shutdown hook already persisted the step
+     */
+    private boolean completeStep(String baselineIdentifier) {
+        synchronized (stepLock) {
+            if (!stepOpen) {
+                return false;
+            }
+            stepOpen = false;
+            writeStep(baselineIdentifier, asyncResultWriter != null);
+            return true;
+        }
+    }
+
+    private void writeStep(String baselineIdentifier, boolean writeBehind) {
+        if(evaluationConfig.isOnlyHistograms()) {
+            LOGGER.info("Subtask {} recorded {} measurements in histograms for {}", getSubtaskName(), measurementsDone, getTargetName());
+            saveCheckpoint(measurementsPerVector.clone(), false);
+        } else if(isSpilling()) {
+            // measurements are already persisted, result files are written once all steps are done
+            LOGGER.info("Subtask {} spilled {} measurements for {}", getSubtaskName(), measurementsDone, getTargetName());
+            saveCheckpoint(measurementsPerVector.clone(), false);
+        } else if(evaluationConfig.isWriteInEachStep() || resumedFromCheckpoint) {
+            LOGGER.info("Writing sub results for subtask {}", getSubtaskName());
+            ResultFileWriter scriptManager = createResultFileWriter(baselineIdentifier);
+            if(writeBehind) {
+                writeBehind(scriptManager);
+            } else {
+                scriptManager.prepareExtendingFiles(getSubtaskName(), getTargetName());
+                saveCheckpoint(measurementsPerVector.clone(), false);
+                resetMeasurements();
+            }
+        } else {
+           createResultFileWriter(baselineIdentifier).prepareFiles(getSubtaskName(), getTargetName()); 
+           saveCheckpoint(measurementsPerVector.clone(), false);
+        }
+    }
+
+    /*
+     * Called by the shutdown hook once pending write-behind jobs have been
+     * flushed, hence the step is written synchronously.
+     */
+    private void persistPartialStep() {
+        synchronized (stepLock) {
+            if (!stepOpen) {
+                return;
+            }
+            stepOpen = false;
+            persistedOnShutdown = true;
+            LOGGER.warn("Persisting the interrupted step of {} for {} ({} measurements in total)", getSubtaskName(), getTargetName(), measurementsDone);
+            try {
+                writeStep(getBaselineIdentifier(), false);
+            } catch (Exception ex) {
+                LOGGER.error("Failed to persist the interrupted step of {} for {}", getSubtaskName(), getTargetName(), ex);
+            }
+        }
+    }
+
+    /*
+     * Checkpoints the measurements of an aborted step, such that a resumed
+     * run does not repeat them. A failure to persist them must not hide the
+     * reason of the abort.
+     */
+    private void persistAbortedStep(String baselineIdentifier) {
+        try {
+            completeStep(baselineIdentifier);
+        } catch (Exception ex) {
+            LOGGER.error("Failed to persist the aborted step of {} for {}", getSubtaskName(), getTargetName(), ex);
+        }
+    }
+
+    private void closeStatePreparer(StatePreparer statePreparer) {
+        if (statePreparer != null) {
+            statePreparer.close();
+        }
+    }
+
+    private boolean isDecidedEarly(SequentialTest sequentialTest, int plannedMeasurements) {
+        // the final look spends the remaining significance level
+        sequentialTest.analyzeStep(measurementReservoirs, measurementsDone >= plannedMeasurements ? 1 : getInformationFraction());
+        if (sequentialTest.isDecided()) {
+            LOGGER.info("Sequential test decided all {} pairs of {} for {} after {}/{} measurements", sequentialTest.getPairCount(), getSubtaskName(), getTargetName(), measurementsDone, plannedMeasurements);
+            return true;
+        }
+        return false;
+    }
+
+    /*
+     * The sequential test only sees the sampled measurements, so the level is
+     * spent by the share of the final sample sizes collected so far rather
+     * than by the share of measurements done. Resumed measurements count as
+     * they have already been tested before the interruption.
+     */
+    private double getInformationFraction() {
+        long sampled = 0;
+        long finalSampleSize = 0;
+        for (int count : measurementsPerVector) {
+            sampled += Math.min(count, EARLY_STOP_SAMPLE_SIZE);
+            finalSampleSize += Math.min(evaluationConfig.getTotalMeasurements(), EARLY_STOP_SAMPLE_SIZE);
+        }
+        return finalSampleSize > 0 ? Math.min(1, (double) sampled / finalSampleSize) : 1;
+    }
+
+    private void recordSequentialTestFindings(SequentialTest sequentialTest, List<String> subtaskIdentifiers) {
+        for (int i = 0; i < sequentialTest.getPairCount(); i++) {
+            String firstIdentifier = subtaskIdentifiers.get(sequentialTest.getPair(i)[0]);
+            String secondIdentifier = subtaskIdentifiers.get(sequentialTest.getPair(i)[1]);
+            LOGGER.info("Sequential test for {} vs {} of {} ({}): {} (p={})", firstIdentifier, secondIdentifier, getSubtaskName(), getTargetName(), sequentialTest.getVerdict(i), sequentialTest.getPValue(i));
+            if (sequentialTest.getVerdict(i) == SequentialTest.Verdict.DIFFERENCE) {
+                appendFinding(firstIdentifier, secondIdentifier);
+            }
+        }
+    }
+
+    /*
+     * Tests all pairs using the measurement store if it still holds all
+     * measurements of the subtask and the sampled measurements otherwise.
+     */
+    private void evaluatePairs(List<String> subtaskIdentifiers, String baselineIdentifier, long planSeed) {
+        boolean storeComplete = isSpilling() || (!evaluationConfig.isWriteInEachStep() && !resumedFromCheckpoint && !evaluationConfig.isOnlyHistograms());
+        Map<String, long[]> sortedMeasurements = new HashMap<>();
+        for (int i = 0; i < subtaskIdentifiers.size(); i++) {
+            long[] sorted;
+            if (storeComplete) {
+                sorted = PairwiseEvaluator.getSortedMeasurements(runningMeasurements, i);
+            } else {
+                sorted = measurementReservoirs[i].getSample();
+                Arrays.sort(sorted);
+            }
+            sortedMeasurements.put(subtaskIdentifiers.get(i), sorted);
+        }
+        PairwiseEvaluator evaluator = new PairwiseEvaluator(PairwiseEvaluator.planPairs(subtaskIdentifiers, baselineIdentifier, isCompareAllVectorCombinations()), evaluationConfig.getEvaluationAlpha(), new SplittableRandom(planSeed).split());
+        List<PairwiseTestResult> results = evaluator.evaluate(sortedMeasurements, !storeComplete);
+        for (PairwiseTestResult result : results) {
+            LOGGER.info("Pairwise tests for {} vs {} of {} ({}): median difference {}, Mann-Whitney p={}, KS p={}, bootstrap p={}", result.getIdentifier1(), result.getIdentifier2(), getSubtaskName(), getTargetName(), result.getMedianDifference(), result.getMannWhitneyPValue(), result.getKolmogorovSmirnovPValue(), result.getBootstrapPValue());
+            if (result.isDifference()) {
+                appendFinding(result.getIdentifier1(), result.getIdentifier2());
+            }
+        }
+        report.setPairwiseTestResults(results);
+    }
+
+    private void appendFinding(String firstIdentifier, String secondIdentifier) {
+        String finding = isCompareAllVectorCombinations() ? firstIdentifier + "vs" + secondIdentifier : secondIdentifier;
+        if (!report.getWithDifference().contains(finding)) {
+            report.appendFinding(finding);
+        }
+    }
+
+    /**
+     * @return true if a checkpoint marks this subtask as completed using the
+     * currently selected cipher suite and protocol version
+     */
+    public boolean isCompletedByCheckpoint() {
+        SubtaskCheckpoint checkpoint = SubtaskCheckpoint.load(getTargetName(), getSubtaskName());
+        return checkpoint != null && checkpoint.isCompleted() && checkpoint.matches(String.valueOf(getCipherSuite()), String.valueOf(getVersion()));
+    }
+
+    private void saveCheckpoint(int[] persistedCounts, boolean completed) {
+        saveCheckpoint(persistedCounts, latencyHistograms, completed);
+    }
+
+    private void saveCheckpoint(int[] persistedCounts, LatencyHistogram[] persistedHistograms, boolean completed) {
+        SubtaskCheckpoint.capture(getTargetName(), getSubtaskName(), String.valueOf(getCipherSuite()), String.valueOf(getVersion()), completed, report.getExecutedIdentifiers(), persistedCounts, persistedHistograms).save(getTargetName(), getSubtaskName());
+    }
+
+    /*
+     * Continues the histograms of an interrupted run, which cannot be rebuilt
+     * from the result files.
+     */
+    private void restoreHistograms(List<String> subtaskIdentifiers) {
+        SubtaskCheckpoint checkpoint = SubtaskCheckpoint.load(getTargetName(), getSubtaskName());
+        for (int i = 0; i < subtaskIdentifiers.size(); i++) {
+            LatencyHistogram restoredHistogram = checkpoint != null ? checkpoint.getHistogram(subtaskIdentifiers.get(i)) : null;
+            if (restoredHistogram == null) {
+                if (measurementsPerVector[i] > 0) {
+                    LOGGER.warn("Checkpoint of {} for {} holds no histogram of {}, it only covers new measurements", getSubtaskName(), getTargetName(), subtaskIdentifiers.get(i));
+                }
+                continue;
+            }
+            try {
+                latencyHistograms[i].merge(restoredHistogram);
+            } catch (IllegalArgumentException ex) {
+                LOGGER.warn("Histogram of {} in the checkpoint of {} for {} uses a different precision, it only covers new measurements", subtaskIdentifiers.get(i), getSubtaskName(), getTargetName());
+            }
+        }
+    }
+
+    private LatencyHistogram[] copyHistograms() {
+        if (latencyHistograms == null) {
+            return null;
+        }
+        LatencyHistogram[] copies = new LatencyHistogram[latencyHistograms.length];
+        for (int i = 0; i < latencyHistograms.length; i++) {
+            copies[i] = new LatencyHistogram(latencyHistograms[i].getSignificantDigits(), latencyHistograms[i].getHighestTrackableValue());
+            copies[i].merge(latencyHistograms[i]);
+        }
+        return copies;
+    }
+
+    /*
+     * Restores the result files of an interrupted run and returns the number
+     * of measurements per vector that have been persisted. Returns null if the
+     * subtask has to start from scratch.
+     */
+    private int[] restoreCheckpoint(List<String> subtaskIdentifiers) {
+        SubtaskCheckpoint checkpoint = SubtaskCheckpoint.load(getTargetName(), getSubtaskName());
+        try {
+            if (checkpoint == null) {
+                SubtaskCheckpoint.discardResultFiles(getTargetName(), getSubtaskName());
+                return null;
+            } else if (!checkpoint.matches(String.valueOf(getCipherSuite()), String.valueOf(getVersion()))) {
+                LOGGER.warn("Checkpoint of {} for {} used {} in version {}, starting over", getSubtaskName(), getTargetName(), checkpoint.getCipherSuite(), checkpoint.getProtocolVersion());
+                SubtaskCheckpoint.discardResultFiles(getTargetName(), getSubtaskName());
+                return null;
+            }
+            checkpoint.restoreResultFiles(getTargetName(), getSubtaskName());
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to restore result files of " + getSubtaskName() + " for " + getTargetName(), ex);
+        }
+        int[] resumedCounts = checkpoint.getMeasurementsPerVector(subtaskIdentifiers);
+        LOGGER.info("Resuming subtask {} for {} with {} persisted measurements", getSubtaskName(), getTargetName(), Arrays.stream(resumedCounts).sum());
+        return resumedCounts;
+    }
+
+    private boolean isWriteBehindEnabled() {
+        return evaluationConfig.isAsyncWrite() && evaluationConfig.isWriteInEachStep() && !isSpilling() && !evaluationConfig.isOnlyHistograms();
+    }
+
+    private boolean isSpilling() {
+        return evaluationConfig.isSpillToDisk() && !evaluationConfig.isOnlyHistograms();
+    }
+
+    /*
+     * Hands the measurements of the finished step over to the background
+     * writer and continues with the second buffer, which is returned by the
+     * writer once the previous step has been persisted.
+     */
+    private void writeBehind(ResultFileWriter scriptManager) {
+        MeasurementStore filledStore = runningMeasurements;
+        int[] persistedCounts = measurementsPerVector.clone();
+        LatencyHistogram[] persistedHistograms = copyHistograms();
+        try {
+            asyncResultWriter.submit(() -> {
+                scriptManager.prepareExtendingFiles(getSubtaskName(), getTargetName());
+                saveCheckpoint(persistedCounts, persistedHistograms, false);
+                filledStore.clear();
+                freeMeasurementStores.add(filledStore);
+            });
+            runningMeasurements = freeMeasurementStores.take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while handing over measurements of " + getSubtaskName(), ex);
+        }
+    }
+
+    private void finishMeasurements() {
+        synchronized (stepLock) {
+            stepOpen = false;
+        }
+        updateReportStatistics();
+        if (asyncResultWriter != null) {
+            asyncResultWriter.close();
+            asyncResultWriter = null;
+            freeMeasurementStores.forEach(MeasurementStore::release);
+            freeMeasurementStores = null;
+        }
+        if (runningMeasurements != null) {
+            runningMeasurements.release();
+        }
+    }
+
+    private ResultFileWriter createResultFileWriter(String baselineIdentifier) {
+        return new ResultFileWriter(baselineIdentifier, runningMeasurements, isCompareAllVectorCombinations(), evaluationConfig.getOutputDirectory(), evaluationConfig.getResultFileFormat(), evaluationConfig.getResultFileLayout(), getCipherSuite(), getVersion());
+    }
+
     private boolean quickRestartTriggered(int failedInARow, int unreachableInARow) {
         return evaluationConfig.isRestartQuickly() && (failedInARow > 2 || unreachableInARow > 0);
     }
 
-    private void printProgress(int i, int subtaskIdentifierCount) {
-        if(i % 1000 == 0 && measurementsDone > 0) {
+    private void printProgress(int i, int subtaskIdentifierCount, int resumedMeasurements) {
+        if(i % 1000 == 0 && measurementsDone > resumedMeasurements) {
             long timeSpent = System.currentTimeMillis() - report.getStartTimestamp();
-            double timePerMeasurement = (double)(timeSpent / measurementsDone);
+            double timePerMeasurement = (double)(timeSpent / (measurementsDone - resumedMeasurements));
             double remainingTime = timePerMeasurement * (evaluationConfig.getTotalMeasurements() * subtaskIdentifierCount - measurementsDone);
             LOGGER.info("Progress: {}/{} for {} in subtask {} (Expected to finish in {})", measurementsDone, evaluationConfig.getTotalMeasurements() * subtaskIdentifierCount, getTargetName(), getSubtaskName(), getReadableTime(remainingTime));
+            printStatistics();
+        }
+    }
+
+    private void printStatistics() {
+        for (int i = 0; i < runningStatistics.length; i++) {
+            RunningStatistics statistics = runningStatistics[i];
+            if (statistics.getCount() > 0) {
+                LOGGER.info("Vector {} of {}: n={} mean={} sd={} p10={} median={} p90={} min={} max={}", report.getExecutedIdentifiers().get(i), getTargetName(), statistics.getCount(), String.format("%.0f", statistics.getMean()), String.format("%.0f", statistics.getStandardDeviation()), String.format("%.0f", statistics.getLowerDecile()), String.format("%.0f", statistics.getMedian()), String.format("%.0f", statistics.getUpperDecile()), statistics.getMin(), statistics.getMax());
+            }
+        }
+    }
+
+    private void updateReportStatistics() {
+        for (int i = 0; i < runningStatistics.length; i++) {
+            String identifier = report.getExecutedIdentifiers().get(i);
+            report.getVectorStatistics().put(identifier, new VectorStatistics(runningStatistics[i]));
+            if (latencyHistograms != null) {
+                report.getHistograms().put(identifier, new VectorHistogram(latencyHistograms[i]));
+            }
         }
     }
 
     private List<String> prepareSubtask() {
+        return prepareSubtask(false);
+    }
+
+    private List<String> prepareSubtask(boolean resumeFromCheckpoint) {
         List<String> subtaskIdentifiers = getSubtaskIdentifiers();
+        int[] resumedCounts = resumeFromCheckpoint ? restoreCheckpoint(subtaskIdentifiers) : null;
+        resumedFromCheckpoint = resumedCounts != null;
+        measurementsPerVector = resumedFromCheckpoint ? resumedCounts.clone() : new int[subtaskIdentifiers.size()];
+        measurementsDone = Arrays.stream(measurementsPerVector).sum();
+        runningStatistics = new RunningStatistics[subtaskIdentifiers.size()];
+        for (int i = 0; i < runningStatistics.length; i++) {
+            runningStatistics[i] = new RunningStatistics();
+        }
+        latencyHistograms = null;
+        if (evaluationConfig.isKeepHistograms()) {
+            latencyHistograms = new LatencyHistogram[subtaskIdentifiers.size()];
+            for (int i = 0; i < latencyHistograms.length; i++) {
+                latencyHistograms[i] = new LatencyHistogram(evaluationConfig.getHistogramPrecision());
+            }
+            if (latencyHistograms.length > 0) {
+                LOGGER.info("Histograms of {} for {} take {} KB per vector", getSubtaskName(), getTargetName(), latencyHistograms[0].getFootprint() / 1024);
+            }
+            if (resumedFromCheckpoint) {
+                restoreHistograms(subtaskIdentifiers);
+            }
+        }
+        measurementReservoirs = null;
+        if (evaluationConfig.isEarlyStop() || evaluationConfig.isEvaluate()) {
+            SplittableRandom reservoirRandom = new SplittableRandom();
+            measurementReservoirs = new MeasurementReservoir[subtaskIdentifiers.size()];
+            for (int i = 0; i < measurementReservoirs.length; i++) {
+                measurementReservoirs[i] = new MeasurementReservoir(EARLY_STOP_SAMPLE_SIZE, reservoirRandom.split());
+            }
+        }
+        int expectedMeasurementsPerVector = evaluationConfig.isWriteInEachStep() || resumedFromCheckpoint ? evaluationConfig.getMeasurementsPerStep() : evaluationConfig.getTotalMeasurements();
+        if (runningMeasurements != null) {
+            runningMeasurements.release();
+            runningMeasurements = null;
+        }
+        if (evaluationConfig.isOnlyHistograms()) {
+            // measurements are only recorded in the histograms
+            LOGGER.debug("Subtask {} keeps no raw measurements for {}", getSubtaskName(), getTargetName());
+        } else if (isSpilling()) {
+            runningMeasurements = new MappedMeasurementStore(subtaskIdentifiers, ResultFileWriter.getRawMeasurementPath(getTargetName(), getSubtaskName()), resumedCounts);
+        } else {
+            runningMeasurements = new HeapMeasurementStore(subtaskIdentifiers, expectedMeasurementsPerVector);
+        }
         report.setIdentifiers(subtaskIdentifiers);
         report.setCipherSuite(getCipherSuite());
         report.setProtocolVersion(getVersion());
@@ -237,7 +767,7 @@ public abstract class EvaluationSubtask {
                 return;
             }
             try {
-                Long newMeasurement = measure(subtaskIdentifiers.get(selected));
+                Long newMeasurement = measure(selected);
                 LOGGER.info("********************************************");
                 LOGGER.info("Measured vector {} ({})", subtaskIdentifiers.get(selected), newMeasurement);
                 LOGGER.info("********************************************");
@@ -247,47 +777,166 @@ public abstract class EvaluationSubtask {
         }
     }
 
-    protected void addMeasurement(String identifier, Long measured) {
-        if (!runningMeasurements.containsKey(identifier)) {
-            runningMeasurements.put(identifier, new LinkedList<>());
+    protected void addMeasurement(int vectorIndex, long measured) {
+        synchronized (stepLock) {
+            if (persistedOnShutdown) {
+                return;
+            }
+            recordMeasurement(vectorIndex, measured);
+        }
+    }
+
+    private void recordMeasurement(int vectorIndex, long measured) {
+        if (!evaluationConfig.isOnlyHistograms()) {
+            runningMeasurements.add(vectorIndex, measured);
+        }
+        measurementsPerVector[vectorIndex]++;
+        runningStatistics[vectorIndex].add(measured);
+        if (latencyHistograms != null) {
+            latencyHistograms[vectorIndex].record(measured);
+        }
+        if (measurementReservoirs != null) {
+            measurementReservoirs[vectorIndex].add(measured);
         }
-        runningMeasurements.get(identifier).add(measured);
     }
     
     protected void resetMeasurements() {
-        runningMeasurements.values().forEach(Collection::clear);
+        if (runningMeasurements != null) {
+            runningMeasurements.clear();
+        }
     }
 
-    protected abstract List<String> getSubtaskIdentifiers();
+    /**
+     * @return the vectors of the subtask, ids are the indices used by the
+     * measurement stores and statistics
+     */
+    protected abstract VectorRegistry<?> getVectorRegistry();
+
+    protected List<String> getSubtaskIdentifiers() {
+        //ensure list is mutable
+        return new ArrayList<>(getVectorRegistry().getNames());
+    }
 
     protected abstract String getBaselineIdentifier();
 
-    protected abstract Long measure(String typeIdentifier) throws WorkflowTraceFailedEarlyException, UndetectableOracleException;
+    /**
+     * Builds the state to measure a vector. States may be prepared ahead of
+     * time in a different thread.
+     */
+    protected abstract State prepareState(int vectorId);
 
-    public Map<String, List<Long>> getRunningMeasurements() {
-        return runningMeasurements;
+    protected Long measure(int vectorId) throws WorkflowTraceFailedEarlyException, UndetectableOracleException {
+        return measureState(prepareState(vectorId));
     }
 
-    private int[] getExecutionPlan(int identifierCount, int nextMeasurementsPerType) {
-        int[] executionPlan = new int[identifierCount * nextMeasurementsPerType];
-        for(int i = 0; i < identifierCount; i++) {
-            Arrays.fill(executionPlan, i * nextMeasurementsPerType, (i + 1) * (nextMeasurementsPerType), i);
+    protected Long measureState(State state) throws WorkflowTraceFailedEarlyException, UndetectableOracleException {
+        boolean abbreviatedHandshake = isAbbreviatedHandshake(state.getWorkflowTrace());
+        try {
+            runExecutor(state);
+        } catch (WorkflowTraceFailedEarlyException ex) {
+            if (abbreviatedHandshake && isBuiltWithCurrentSession(state)) {
+                sessionResumptionFailed();
+            }
+            throw ex;
+        } finally {
+            parentTask.handshakeFinished();
         }
-        shuffleArray(executionPlan);
-        shuffleArray(executionPlan);
-        shuffleArray(executionPlan);
-        return executionPlan;
+        if (abbreviatedHandshake) {
+            resumptionFailuresInARow = 0;
+        } else if (isSessionResumptionEnabled()) {
+            storeResumableSession(state);
+        }
+        return getMeasurement(state);
     }
-    
-    private static void shuffleArray(int[] array) {
-        for (int i = array.length - 1; i > 0; i--) {
-            int j = notReallyRandom.nextInt(i + 1);
-            int temp = array[i];
-            array[i] = array[j];
-            array[j] = temp;
+
+    /**
+     * Subtasks that only need an established connection state before sending
+     * their crafted record may measure using abbreviated handshakes.
+     */
+    protected boolean supportsSessionResumption() {
+        return false;
+    }
+
+    protected boolean isSessionResumptionEnabled() {
+        return evaluationConfig.isSessionResumption() && evaluationConfig.getTargetManagement() == DockerTargetManagement.KEEP_ALIVE && supportsSessionResumption() && !sessionResumptionFailed;
+    }
+
+    /**
+     * Configures the session ID and master secret of the last full handshake
+     * for resumption.
+     *
+     * @return false if no session can be resumed and a full handshake is
+     * required
+     */
+    protected boolean applyResumableSession(Config config) {
+        ResumableSession session = resumableSession;
+        if (session == null || !isSessionResumptionEnabled()) {
+            return false;
+        }
+        config.setDefaultClientSessionId(session.sessionId);
+        config.setDefaultMasterSecret(session.masterSecret);
+        return true;
+    }
+
+    protected WorkflowTrace createAbbreviatedHandshakeTrace(Config config) {
+        WorkflowTrace trace = new WorkflowConfigurationFactory(config).createTlsEntryWorkflowTrace(config.getDefaultClientConnection());
+        trace.addTlsAction(new SendAction(new ClientHelloMessage(config)));
+        trace.addTlsAction(new ReceiveAction(new ServerHelloMessage(config), new ChangeCipherSpecMessage(config), new FinishedMessage(config)));
+        trace.addTlsAction(new SendAction(new ChangeCipherSpecMessage(config), new FinishedMessage(config)));
+        return trace;
+    }
+
+    protected boolean isAbbreviatedHandshake(WorkflowTrace workflowTrace) {
+        return WorkflowTraceUtil.getFirstSendingActionForMessage(HandshakeMessageType.CLIENT_KEY_EXCHANGE, workflowTrace) == null;
+    }
+
+    /**
+     * Sends the prepared record as application data after the handshake and
+     * awaits the response.
+     */
+    protected void appendRecordActions(WorkflowTrace workflowTrace, Config config, Record preparedRecord) {
+        SendAction sendAction = new SendAction(new ApplicationMessage(config));
+        sendAction.setRecords(new LinkedList<>());
+        sendAction.getRecords().add(preparedRecord);
+        workflowTrace.addTlsAction(sendAction);
+        workflowTrace.addTlsAction(new GenericReceiveAction());
+    }
+
+    private void storeResumableSession(State state) {
+        byte[] sessionId = state.getTlsContext().getServerSessionId();
+        byte[] masterSecret = state.getTlsContext().getMasterSecret();
+        if (sessionId != null && sessionId.length > 0 && masterSecret != null) {
+            resumableSession = new ResumableSession(sessionId, masterSecret);
+        }
+    }
+
+    /**
+     * States prepared ahead of time may still carry a session that has
+     * already been dropped or replaced. Their failures say nothing about the
+     * current session and must not disable resumption.
+     */
+    private boolean isBuiltWithCurrentSession(State state) {
+        ResumableSession session = resumableSession;
+        return session != null && Arrays.equals(session.sessionId, state.getConfig().getDefaultClientSessionId());
+    }
+
+    private void sessionResumptionFailed() {
+        resumableSession = null;
+        resumptionFailuresInARow++;
+        if (resumptionFailuresInARow >= MAX_RESUMPTION_FAILURES_IN_A_ROW) {
+            LOGGER.warn("Target {} did not resume sessions {} times in a row - {} falls back to full handshakes", getTargetName(), resumptionFailuresInARow, getSubtaskName());
+            sessionResumptionFailed = true;
         }
     }
 
+    /**
+     * @return the raw measurements of the current step or null if only
+     * histograms are kept
+     */
+    public MeasurementStore getRunningMeasurements() {
+        return runningMeasurements;
+    }
+
     public String getSubtaskName() {
         return subtaskName;
     }
@@ -304,7 +953,88 @@ public abstract class EvaluationSubtask {
         return targetIp;
     }
 
+    /**
+     * Returns a copy of the prototype config for the given version and cipher
+     * suite with the connection target of the current measurement. The
+     * prototype is only built once per subtask.
+     */
     protected Config getBaseConfig(ProtocolVersion version, CipherSuite cipherSuite) {
+        Config config = copyConfig(getBaseConfigPrototype(version, cipherSuite));
+        config.getDefaultClientConnection().setHostname(parentTask.getCurrentIp());
+        int dynamicPort = targetPort;
+        if (parentTask.isPortSwitchEnabled()) {
+            dynamicPort = parentTask.getCurrentPort();
+        }
+        config.getDefaultClientConnection().setPort(dynamicPort);
+        return config;
+    }
+
+    /*
+     * Copies the prototype field by field instead of serializing the whole
+     * object graph for each measurement. Like deserialization, the copy is
+     * allocated without running the field initializers of Config, which would
+     * build a complete default config only to overwrite it. Lists, sets, maps
+     * and byte arrays are copied, so states prepared ahead never modify the
+     * prototype or each other; keys, enums and strings are immutable and
+     * shared. The connection, which is changed per measurement, gets its own
+     * copy.
+     */
+    private static Config copyConfig(Config prototype) {
+        try {
+            Config config = (Config) CONFIG_ALLOCATOR.newInstance();
+            for (Field field : CONFIG_FIELDS) {
+                field.set(config, copyConfigMember(field, field.get(prototype)));
+            }
+            config.setDefaultClientConnection(new OutboundConnection(prototype.getDefaultClientConnection()));
+            return config;
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Failed to copy config", ex);
+        }
+    }
+
+    private static Object copyConfigMember(Field field, Object value) {
+        if (value instanceof byte[]) {
+            return ((byte[]) value).clone();
+        } else if (value instanceof List && field.getType().isAssignableFrom(ArrayList.class)) {
+            return new ArrayList<>((List<?>) value);
+        } else if (value instanceof Set && field.getType().isAssignableFrom(LinkedHashSet.class)) {
+            return new LinkedHashSet<>((Set<?>) value);
+        } else if (value instanceof Map && field.getType().isAssignableFrom(LinkedHashMap.class)) {
+            return new LinkedHashMap<>((Map<?, ?>) value);
+        }
+        return value;
+    }
+
+    private static Constructor<?> getConfigAllocator() {
+        try {
+            // Config is serializable, so it may be created the way deserialization does
+            return ReflectionFactory.getReflectionFactory().newConstructorForSerialization(Config.class, Object.class.getDeclaredConstructor());
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalStateException("Failed to find constructor of Object", ex);
+        }
+    }
+
+    private static List<Field> getConfigFields() {
+        List<Field> fields = new LinkedList<>();
+        for (Field field : Config.class.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    private synchronized Config getBaseConfigPrototype(ProtocolVersion version, CipherSuite cipherSuite) {
+        if (baseConfigPrototype == null || version != prototypeVersion || cipherSuite != prototypeCipherSuite) {
+            baseConfigPrototype = createBaseConfig(version, cipherSuite);
+            prototypeVersion = version;
+            prototypeCipherSuite = cipherSuite;
+        }
+        return baseConfigPrototype;
+    }
+
+    private Config createBaseConfig(ProtocolVersion version, CipherSuite cipherSuite) {
         Config config = Config.createConfig();
         config.setDefaultSelectedCipherSuite(cipherSuite);
         if (cipherSuite.name().contains("ECDH")) {
@@ -338,12 +1068,6 @@ public abstract class EvaluationSubtask {
 
         config.setDefaultClientSupportedCipherSuites(cipherSuite);
         config.setDefaultRunningMode(RunningModeType.CLIENT);
-        config.getDefaultClientConnection().setHostname(targetIp);
-        int dynamicPort = targetPort;
-        if (parentTask.isPortSwitchEnabled()) {
-            dynamicPort = HttpUtil.getCurrentPort(targetIp, targetPort);
-        }
-        config.getDefaultClientConnection().setPort(dynamicPort);
         config.getDefaultClientConnection().setProxyControlHostname(evaluationConfig.getProxyIp());
         config.getDefaultClientConnection().setProxyControlPort(evaluationConfig.getProxyControlPort());
         config.getDefaultClientConnection().setProxyDataHostname(evaluationConfig.getProxyIp());
@@ -403,6 +1127,10 @@ public abstract class EvaluationSubtask {
     }
 
     protected void handleClientAuthentication(WorkflowTrace workflowTrace, Config config) {
+        if (isAbbreviatedHandshake(workflowTrace)) {
+            // client certificates are only sent in full handshakes
+            return;
+        }
         SendAction clientSecondFlight = (SendAction) WorkflowTraceUtil.getFirstSendingActionForMessage(HandshakeMessageType.CLIENT_KEY_EXCHANGE, workflowTrace);
         if (serverReport.getCcaSupported()) {
             if (workflowTrace.getFirstReceivingAction() instanceof ReceiveAction) {
@@ -479,4 +1207,15 @@ public abstract class EvaluationSubtask {
     public ProtocolVersion getVersion() {
         return version;
     }
+
+    private static class ResumableSession {
+
+        private final byte[] sessionId;
+        private final byte[] masterSecret;
+
+        ResumableSession(byte[] sessionId, byte[] masterSecret) {
+            this.sessionId = sessionId;
+            this.masterSecret = masterSecret;
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package de.rub.nds.timingdockerevaluator.task.subtask;
 
+import de.rub.nds.timingdockerevaluator.task.eval.PairwiseTestResult;
 import de.rub.nds.tlsattacker.core.constants.CipherSuite;
 import de.rub.nds.tlsattacker.core.constants.ProtocolVersion;
 import java.util.HashMap;
@@ -18,10 +19,14 @@ public class EvaluationSubtaskReport {
     private int failedEarlyCount;
     private int undetectableCount;
     private Map<String, Integer> undetectablePerVector = new HashMap<>();
+    private Map<String, VectorStatistics> vectorStatistics = new HashMap<>();
+    private Map<String, VectorHistogram> histograms = new HashMap<>();
+    private List<PairwiseTestResult> pairwiseTestResults = new LinkedList<>();
     private CipherSuite cipherSuite;
     private ProtocolVersion protocolVersion;
     private boolean failed = false;
     private boolean undetectable = false;
+    private boolean stoppedEarly = false;
     private long startTimestamp = System.currentTimeMillis();
     private long endTimestamp;
     private long duration;
@@ -179,6 +184,30 @@ public class EvaluationSubtaskReport {
         this.undetectablePerVector = undetectablePerVector;
     }
 
+    public Map<String, VectorStatistics> getVectorStatistics() {
+        return vectorStatistics;
+    }
+
+    public void setVectorStatistics(Map<String, VectorStatistics> vectorStatistics) {
+        this.vectorStatistics = vectorStatistics;
+    }
+
+    public Map<String, VectorHistogram> getHistograms() {
+        return histograms;
+    }
+
+    public void setHistograms(Map<String, VectorHistogram> histograms) {
+        this.histograms = histograms;
+    }
+
+    public List<PairwiseTestResult> getPairwiseTestResults() {
+        return pairwiseTestResults;
+    }
+
+    public void setPairwiseTestResults(List<PairwiseTestResult> pairwiseTestResults) {
+        this.pairwiseTestResults = pairwiseTestResults;
+    }
+
     public boolean isUndetectable() {
         return undetectable;
     }
@@ -186,4 +215,12 @@ public class EvaluationSubtaskReport {
     public void setUndetectable(boolean undetectable) {
         this.undetectable = undetectable;
     }
+
+    public boolean isStoppedEarly() {
+        return stoppedEarly;
+    }
+
+    public void setStoppedEarly(boolean stoppedEarly) {
+        this.stoppedEarly = stoppedEarly;
+    }
 }
@@ -0,0 +1,90 @@
+package de.rub.nds.timingdockerevaluator.task.subtask;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Randomized order of the measurements of a step. Instead of materializing
+ * and shuffling the plan, each position is mapped to a slot using a keyed
+ * Feistel permutation with cycle walking, and the slot is mapped to its vector
+ * using the prefix sums of the measurements per vector. Hence, the memory
+ * footprint only depends on the number of vectors. Plans created with the same
+ * seed and counts are identical.
+ */
+public class ExecutionPlan {
+
+    private static final int ROUNDS = 4;
+
+    private final long[] vectorEnds;
+    private final long size;
+    private final int halfBits;
+    private final long halfMask;
+    private final long[] roundKeys = new long[ROUNDS];
+
+    public ExecutionPlan(int[] measurementsPerVector, long seed) {
+        vectorEnds = new long[measurementsPerVector.length];
+        long end = 0;
+        for (int i = 0; i < measurementsPerVector.length; i++) {
+            end += measurementsPerVector[i];
+            vectorEnds[i] = end;
+        }
+        size = end;
+        int bits = 64 - Long.numberOfLeadingZeros(Math.max(1, size - 1));
+        halfBits = Math.max(1, (bits + 1) / 2);
+        halfMask = (1L << halfBits) - 1;
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < ROUNDS; i++) {
+            roundKeys[i] = random.nextLong();
+        }
+    }
+
+    public static ExecutionPlan balanced(int vectorCount, int measurementsPerVector, long seed) {
+        int[] measurements = new int[vectorCount];
+        Arrays.fill(measurements, measurementsPerVector);
+        return new ExecutionPlan(measurements, seed);
+    }
+
+    public int size() {
+        return (int) size;
+    }
+
+    /**
+     * @return the index of the vector to measure at the given position
+     */
+    public int getVector(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Position " + position + " exceeds plan of " + size + " measurements");
+        }
+        long slot = position;
+        do {
+            slot = permute(slot);
+        } while (slot >= size);
+        int vector = Arrays.binarySearch(vectorEnds, slot);
+        // slots are assigned to the first vector whose end exceeds the slot
+        if (vector >= 0) {
+            vector++;
+            while (vectorEnds[vector] == slot) {
+                vector++;
+            }
+            return vector;
+        }
+        return -vector - 1;
+    }
+
+    private long permute(long value) {
+        long left = value >>> halfBits;
+        long right = value & halfMask;
+        for (long roundKey : roundKeys) {
+            long mixed = left ^ (mix(right ^ roundKey) & halfMask);
+            left = right;
+            right = mixed;
+        }
+        return (left << halfBits) | right;
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
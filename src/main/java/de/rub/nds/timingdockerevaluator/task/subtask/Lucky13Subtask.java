@@ -1,29 +1,37 @@
 package de.rub.nds.timingdockerevaluator.task.subtask;
 
+import de.rub.nds.modifiablevariable.util.Modifiable;
 import de.rub.nds.timingdockerevaluator.config.TimingDockerEvaluatorCommandConfig;
 import de.rub.nds.timingdockerevaluator.task.EvaluationTask;
-import de.rub.nds.timingdockerevaluator.task.exception.UndetectableOracleException;
-import de.rub.nds.timingdockerevaluator.task.exception.WorkflowTraceFailedEarlyException;
 import de.rub.nds.tlsattacker.core.config.delegate.ClientDelegate;
 import de.rub.nds.tlsattacker.core.config.delegate.GeneralDelegate;
+import de.rub.nds.tlsattacker.core.config.Config;
 import de.rub.nds.tlsattacker.core.constants.CipherSuite;
 import de.rub.nds.tlsattacker.core.record.Record;
+import de.rub.nds.tlsattacker.core.record.RecordCryptoComputations;
 import de.rub.nds.tlsattacker.core.state.State;
 import de.rub.nds.tlsattacker.core.workflow.WorkflowTrace;
 import de.rub.nds.tlsattacker.core.workflow.action.ReceiveAction;
 import de.rub.nds.tlsattacker.core.workflow.action.ReceivingAction;
+import de.rub.nds.tlsattacker.core.workflow.factory.WorkflowConfigurationFactory;
+import de.rub.nds.tlsattacker.core.workflow.factory.WorkflowTraceType;
 import de.rub.nds.tlsbreaker.breakercommons.config.delegate.ProxyDelegate;
 import de.rub.nds.tlsbreaker.lucky13.config.Lucky13CommandConfig;
 import de.rub.nds.tlsbreaker.lucky13.impl.Lucky13Attacker;
 import de.rub.nds.tlsscanner.serverscanner.report.ServerReport;
-import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
 
 public class Lucky13Subtask extends EvaluationSubtask {
+
+    private static final int LONG_PADDING_LENGTH = 255;
+
+    private final VectorRegistry<Integer> vectorRegistry = new VectorRegistry<>();
+    private byte[][] plainRecordTemplates;
     
     public Lucky13Subtask(String targetName, int port, String ip, TimingDockerEvaluatorCommandConfig evaluationConfig, EvaluationTask parentTask) {
         super(SubtaskNames.LUCKY13.getCamelCaseName(), targetName, port, ip, evaluationConfig, parentTask);
+        vectorRegistry.register("NO_PADDING", 0);
+        vectorRegistry.register("LONG_PADDING", LONG_PADDING_LENGTH);
     }
     
     @Override
@@ -40,12 +48,14 @@ public class Lucky13Subtask extends EvaluationSubtask {
             cipherSuite = serverReport.getCipherSuites().stream().filter(cipher -> cipher.name().endsWith("_SHA")).findFirst().orElse(null);
         }
         version = determineVersion(serverReport);
+        synchronized (this) {
+            plainRecordTemplates = null;
+        }
     }
 
     @Override
-    protected List<String> getSubtaskIdentifiers() {
-        //ensure list is mutable
-        return new LinkedList<>(Arrays.asList(new String[] {"NO_PADDING","LONG_PADDING"}));
+    protected VectorRegistry<Integer> getVectorRegistry() {
+        return vectorRegistry;
     }
 
     @Override
@@ -54,29 +64,62 @@ public class Lucky13Subtask extends EvaluationSubtask {
     }
 
     @Override
-    protected Long measure(String typeIdentifier) throws WorkflowTraceFailedEarlyException, UndetectableOracleException {
+    protected State prepareState(int vectorId) {
+        Record record = createRecord(getPlainRecordTemplates()[vectorId]);
+        Config config = getBaseConfig(getVersion(), getCipherSuite());
+        WorkflowTrace workflowTrace;
+        if (applyResumableSession(config)) {
+            workflowTrace = createAbbreviatedHandshakeTrace(config);
+        } else {
+            workflowTrace = new WorkflowConfigurationFactory(config).createWorkflowTrace(WorkflowTraceType.HANDSHAKE, config.getDefaultRunningMode());
+            handleClientAuthentication(workflowTrace, config);
+        }
+        appendRecordActions(workflowTrace, config, record);
+        return new State(config, workflowTrace);
+    }
+
+    /**
+     * Records keep state during execution, hence each state gets a new record
+     * with the padded plaintext of the vector.
+     */
+    private static Record createRecord(byte[] plainRecordBytes) {
+        Record record = new Record();
+        record.setComputations(new RecordCryptoComputations());
+        record.getComputations().setPlainRecordBytes(Modifiable.explicit(plainRecordBytes.clone()));
+        return record;
+    }
+
+    /**
+     * Lets the attacker pad the plaintext of each vector once per subtask.
+     * The attacker only fixes the plain record bytes of its records.
+     */
+    private synchronized byte[][] getPlainRecordTemplates() {
+        if (plainRecordTemplates != null) {
+            return plainRecordTemplates;
+        }
         Lucky13CommandConfig lucky13commandConfig = new Lucky13CommandConfig(new GeneralDelegate());
         lucky13commandConfig.getDelegate(ProxyDelegate.class).setProxyControl(evaluationConfig.getProxyIp() + ":" + evaluationConfig.getProxyControlPort());
         lucky13commandConfig.getDelegate(ProxyDelegate.class).setProxyData(evaluationConfig.getProxyIp() + ":" + evaluationConfig.getProxyDataPort());
         lucky13commandConfig.getDelegate(ClientDelegate.class).setHost(getTargetIp() + ":" + getTargetPort());
         Lucky13Attacker attacker = new Lucky13Attacker(lucky13commandConfig, getBaseConfig(getVersion(), getCipherSuite()));
-        
-        int padLen = 0;
-        if(typeIdentifier.equals("LONG_PADDING")) {
-            padLen = 255;
+        byte[][] templates = new byte[vectorRegistry.size()][];
+        for (int i = 0; i < templates.length; i++) {
+            templates[i] = attacker.createRecordWithPadding(vectorRegistry.getPayload(i), getCipherSuite()).getComputations().getPlainRecordBytes().getValue();
         }
-        Record record = attacker.createRecordWithPadding(padLen, getCipherSuite());
-        State state = attacker.buildAttackState(record);
-        handleClientAuthentication(state.getWorkflowTrace(), state.getConfig());
-        runExecutor(state);
-        return getMeasurement(state);
+        plainRecordTemplates = templates;
+        return templates;
     }
-
     
     @Override
     protected boolean workflowTraceSufficientlyExecuted(WorkflowTrace executedTrace) {
         //ensure that we got CCS, FIN
         List<ReceivingAction> receives = executedTrace.getReceivingActions();
-        return ((ReceiveAction)receives.get(1)).executedAsPlanned();
+        int finishedIndex = isAbbreviatedHandshake(executedTrace) ? 0 : 1;
+        return ((ReceiveAction)receives.get(finishedIndex)).executedAsPlanned();
+    }
+
+    @Override
+    protected boolean supportsSessionResumption() {
+        return true;
     }
 }
@@ -1,35 +1,33 @@
 package de.rub.nds.timingdockerevaluator.task.subtask;
 
-import de.rub.nds.modifiablevariable.bytearray.ModifiableByteArray;
 import de.rub.nds.modifiablevariable.util.ArrayConverter;
 import de.rub.nds.modifiablevariable.util.Modifiable;
 import de.rub.nds.timingdockerevaluator.config.TimingDockerEvaluatorCommandConfig;
 import de.rub.nds.timingdockerevaluator.task.EvaluationTask;
-import de.rub.nds.timingdockerevaluator.task.exception.UndetectableOracleException;
-import de.rub.nds.timingdockerevaluator.task.exception.WorkflowTraceFailedEarlyException;
 import de.rub.nds.tlsattacker.core.config.Config;
 import de.rub.nds.tlsattacker.core.constants.CipherSuite;
 import de.rub.nds.tlsattacker.core.constants.RunningModeType;
-import de.rub.nds.tlsattacker.core.protocol.message.ApplicationMessage;
 import de.rub.nds.tlsattacker.core.protocol.message.RSAClientKeyExchangeMessage;
 import de.rub.nds.tlsattacker.core.record.Record;
 import de.rub.nds.tlsattacker.core.record.RecordCryptoComputations;
 import de.rub.nds.tlsattacker.core.state.State;
 import de.rub.nds.tlsattacker.core.workflow.WorkflowTrace;
-import de.rub.nds.tlsattacker.core.workflow.action.GenericReceiveAction;
 import de.rub.nds.tlsattacker.core.workflow.action.ReceiveAction;
 import de.rub.nds.tlsattacker.core.workflow.action.ReceivingAction;
-import de.rub.nds.tlsattacker.core.workflow.action.SendAction;
 import de.rub.nds.tlsattacker.core.workflow.factory.WorkflowConfigurationFactory;
 import de.rub.nds.tlsattacker.core.workflow.factory.WorkflowTraceType;
 import de.rub.nds.tlsscanner.serverscanner.report.ServerReport;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
 
 public class PaddingOracleSubtask extends EvaluationSubtask {
 
+    private static final int SHA_PADDING_LENGTH = 60;
+    private static final int SHA256_PADDING_LENGTH = 48;
+    private static final int PLAIN_RECORD_LENGTH = 80;
+
     private boolean usingAesSha = false;
-    List<String> vectors;
+    private VectorRegistry<RecordTemplate> vectorRegistry = new VectorRegistry<>();
 
     public PaddingOracleSubtask(String targetName, int port, String ip, TimingDockerEvaluatorCommandConfig evaluationConfig, EvaluationTask parentTask) {
         super(SubtaskNames.PADDING_ORACLE.getCamelCaseName(), targetName, port, ip, evaluationConfig, parentTask);
@@ -46,16 +44,7 @@ public class PaddingOracleSubtask extends EvaluationSubtask {
         selectCipherSuite(serverReport);
         version = determineVersion(serverReport);
         
-        vectors = new LinkedList<>();   
-        if(usingAesSha) {
-            vectors.add("ValPadInvMac-[0]-0-59");
-            vectors.add("InvPadValMac-[0]-0-59");
-        } else {
-            vectors.add("ValPadInvMac-[0]-0-47");
-            vectors.add("InvPadValMac-[0]-0-47");
-        }
-        vectors.add("Plain_FF");
-        vectors.add("Plain_XF_(0xXF=#padding_bytes)");
+        vectorRegistry = createVectorRegistry(usingAesSha);
     }
 
     private void selectCipherSuite(ServerReport serverReport) {
@@ -88,8 +77,8 @@ public class PaddingOracleSubtask extends EvaluationSubtask {
     }
 
     @Override
-    protected List<String> getSubtaskIdentifiers() {
-        return new LinkedList<>(vectors);
+    protected VectorRegistry<RecordTemplate> getVectorRegistry() {
+        return vectorRegistry;
     }
 
     @Override
@@ -98,16 +87,11 @@ public class PaddingOracleSubtask extends EvaluationSubtask {
     }
 
     @Override
-    protected Long measure(String typeIdentifier) throws WorkflowTraceFailedEarlyException, UndetectableOracleException {
+    protected State prepareState(int vectorId) {
        
         Config config = getBaseConfig(getVersion(), getCipherSuite());
         
-        WorkflowTrace workflowTrace;
-        if(usingAesSha) {
-            workflowTrace = getWorkflowTraceForRecordType(typeIdentifier, config);
-        } else {
-            workflowTrace = getWorkflowTraceForRecordTypeSha256(typeIdentifier, config);
-        }
+        WorkflowTrace workflowTrace = createTrace(config, vectorRegistry.getPayload(vectorId).createRecord());
         
         if (evaluationConfig.isEchoTest()) {
             byte[] byteArray = {
@@ -132,255 +116,39 @@ public class PaddingOracleSubtask extends EvaluationSubtask {
         setSpecificReceiveAction(workflowTrace);
         handleClientAuthentication(workflowTrace, config);
 
-        final State state = new State(config, workflowTrace);
-        runExecutor(state);
-        
-        return getMeasurement(state);
+        return new State(config, workflowTrace);
     }
     
-    private WorkflowTrace getWorkflowTraceForRecordType(String identifier, Config config) {
-        Record preparedRecord = new Record();
-        preparedRecord.setComputations(new RecordCryptoComputations());
-        ModifiableByteArray paddingModArray;
-        ModifiableByteArray macModArray;
-        byte[] padding;
-        byte padVal;
-        byte macXorVal;
-        if(identifier.equals("ValPadInvMac-[0]-0-59")) {
-            padVal = (byte) 0x3B;
-            macXorVal = (byte) 0x80;
-            padding = new byte[] {
-                (byte) 0x3B, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal};
-            byte[] fullPlain = new byte[] {
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal};
-            preparedRecord.getComputations().setPlainRecordBytes(Modifiable.dummy(fullPlain));
-        } else if (identifier.equals("InvPadValMac-[0]-0-59")) {
-            padVal = (byte) 0x3B;
-            macXorVal = (byte) 0x00;
-            // add padding array in all vectors because we need to modify the
-            // first byte for this vector
-            padding = new byte[] {
-                (byte) 0xBB, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal};
-            byte[] fullPlain = new byte[] {
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal};
-            preparedRecord.getComputations().setPlainRecordBytes(Modifiable.dummy(fullPlain));
-        } else if (identifier.equals("Plain_FF")) {
-            padVal = (byte) 0xFF;
-            macXorVal = (byte) 0x00;
-            padding = new byte[] {
-                (byte) 0xFF, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal};
-            byte[] fullPlain = new byte[] {
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal};
-            preparedRecord.getComputations().setPlainRecordBytes(Modifiable.explicit(fullPlain));
-        } else if (identifier.equals("Plain_XF_(0xXF=#padding_bytes)")) {
-            padVal = (byte) 0x4F;
-            macXorVal = (byte) 0x00;
-            padding = new byte[] {
-                (byte) 0x4F, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal};
-            byte[] fullPlain = new byte[] {
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal};
-            preparedRecord.getComputations().setPlainRecordBytes(Modifiable.explicit(fullPlain));
+    private static VectorRegistry<RecordTemplate> createVectorRegistry(boolean usingAesSha) {
+        VectorRegistry<RecordTemplate> templates = new VectorRegistry<>();
+        if (usingAesSha) {
+            addTemplate(templates, new RecordTemplate("ValPadInvMac-[0]-0-59", (byte) 0x3B, (byte) 0x3B, SHA_PADDING_LENGTH, (byte) 0x80, false));
+            addTemplate(templates, new RecordTemplate("InvPadValMac-[0]-0-59", (byte) 0xBB, (byte) 0x3B, SHA_PADDING_LENGTH, (byte) 0x00, false));
+            addTemplate(templates, new RecordTemplate("Plain_FF", (byte) 0xFF, (byte) 0xFF, SHA_PADDING_LENGTH, (byte) 0x00, true));
+            addTemplate(templates, new RecordTemplate("Plain_XF_(0xXF=#padding_bytes)", (byte) 0x4F, (byte) 0x4F, SHA_PADDING_LENGTH, (byte) 0x00, true));
         } else {
-            throw new IllegalArgumentException("Unknown Record type " + identifier);
+            addTemplate(templates, new RecordTemplate("ValPadInvMac-[0]-0-47", (byte) 0x2F, (byte) 0x2F, SHA256_PADDING_LENGTH, (byte) 0x80, false));
+            addTemplate(templates, new RecordTemplate("InvPadValMac-[0]-0-47", (byte) 0xAF, (byte) 0x2F, SHA256_PADDING_LENGTH, (byte) 0x00, false));
+            addTemplate(templates, new RecordTemplate("Plain_FF", (byte) 0xFF, (byte) 0xFF, SHA256_PADDING_LENGTH, (byte) 0x00, true));
+            addTemplate(templates, new RecordTemplate("Plain_XF_(0xXF=#padding_bytes)", (byte) 0x4F, (byte) 0x4F, SHA256_PADDING_LENGTH, (byte) 0x00, true));
         }
-        paddingModArray = Modifiable.explicit(padding);
-        preparedRecord.setCleanProtocolMessageBytes(Modifiable.explicit(new byte[0]));
-        preparedRecord.getComputations().setPadding(paddingModArray);
-        
-        macModArray = Modifiable.xor(new byte[] {macXorVal}, 0);
-        preparedRecord.getComputations().setMac(macModArray);
-        
-        WorkflowTrace trace = createTrace(config, preparedRecord);
-        return trace;
+        return templates;
     }
-    
-    private WorkflowTrace getWorkflowTraceForRecordTypeSha256(String identifier, Config config) {
-        // This code is duplicated to avoid changes to our tested setup
-        Record preparedRecord = new Record();
-        preparedRecord.setComputations(new RecordCryptoComputations());
-        ModifiableByteArray paddingModArray;
-        ModifiableByteArray macModArray;
-        byte[] padding;
-        byte padVal;
-        byte macXorVal;
-        if(identifier.equals("ValPadInvMac-[0]-0-47")) {
-            padVal = (byte)  0x2F;
-            macXorVal = (byte) 0x80;
-            padding = new byte[] {
-                (byte) 0x2F, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal};
-            byte[] fullPlain = new byte[] {
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal};
-            preparedRecord.getComputations().setPlainRecordBytes(Modifiable.dummy(fullPlain));
-        } else if (identifier.equals("InvPadValMac-[0]-0-47")) {
-            padVal = (byte) 0x2F;
-            macXorVal = (byte) 0x00;
-            // add padding array in all vectors because we need to modify the
-            // first byte for this vector
-            padding = new byte[] {
-                (byte) 0xAF, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal};
-            byte[] fullPlain = new byte[] {
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal};
-            preparedRecord.getComputations().setPlainRecordBytes(Modifiable.dummy(fullPlain));
-        } else if (identifier.equals("Plain_FF")) {
-            padVal = (byte) 0xFF;
-            macXorVal = (byte) 0x00;
-            padding = new byte[] {
-                (byte) 0xFF, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal};
-            byte[] fullPlain = new byte[] {
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal};
-            preparedRecord.getComputations().setPlainRecordBytes(Modifiable.explicit(fullPlain));
-        } else if (identifier.equals("Plain_XF_(0xXF=#padding_bytes)")) {
-            padVal = (byte) 0x4F;
-            macXorVal = (byte) 0x00;
-            padding = new byte[] {
-                (byte) 0x4F, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal};
-            byte[] fullPlain = new byte[] {
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal, 
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal,
-                padVal, padVal, padVal, padVal, padVal, padVal, padVal, padVal};
-            preparedRecord.getComputations().setPlainRecordBytes(Modifiable.explicit(fullPlain));
-        } else {
-            throw new IllegalArgumentException("Unknown Record type " + identifier);
-        }
-        paddingModArray = Modifiable.explicit(padding);
-        preparedRecord.setCleanProtocolMessageBytes(Modifiable.explicit(new byte[0]));
-        preparedRecord.getComputations().setPadding(paddingModArray);
-        
-        macModArray = Modifiable.xor(new byte[] {macXorVal}, 0);
-        preparedRecord.getComputations().setMac(macModArray);
-        
-        WorkflowTrace trace = createTrace(config, preparedRecord);
-        return trace;
+
+    private static void addTemplate(VectorRegistry<RecordTemplate> templates, RecordTemplate template) {
+        templates.register(template.getIdentifier(), template);
     }
     
     private WorkflowTrace createTrace(Config config, Record preparedRecord) {
-        RunningModeType runningMode = config.getDefaultRunningMode();
-        WorkflowTrace trace =
-                new WorkflowConfigurationFactory(config).createWorkflowTrace(WorkflowTraceType.HANDSHAKE, runningMode);
-        ApplicationMessage applicationMessage = new ApplicationMessage(config);
-        SendAction sendAction = new SendAction(applicationMessage);
-        sendAction.setRecords(new LinkedList<>());
-        sendAction.getRecords().add(preparedRecord);
-        trace.addTlsAction(sendAction);
-        trace.addTlsAction(new GenericReceiveAction());
+        WorkflowTrace trace;
+        // the echo test modifies the key exchange of a full handshake
+        if (!evaluationConfig.isEchoTest() && applyResumableSession(config)) {
+            trace = createAbbreviatedHandshakeTrace(config);
+        } else {
+            RunningModeType runningMode = config.getDefaultRunningMode();
+            trace = new WorkflowConfigurationFactory(config).createWorkflowTrace(WorkflowTraceType.HANDSHAKE, runningMode);
+        }
+        appendRecordActions(trace, config, preparedRecord);
         return trace;
     }
     
@@ -394,7 +162,56 @@ public class PaddingOracleSubtask extends EvaluationSubtask {
     protected boolean workflowTraceSufficientlyExecuted(WorkflowTrace executedTrace) {
         //ensure that we got CCS, FIN
         List<ReceivingAction> receives = executedTrace.getReceivingActions();
-        return ((ReceiveAction) receives.get(1)).executedAsPlanned();
+        int finishedIndex = isAbbreviatedHandshake(executedTrace) ? 0 : 1;
+        return ((ReceiveAction) receives.get(finishedIndex)).executedAsPlanned();
+    }
+
+    @Override
+    protected boolean supportsSessionResumption() {
+        return true;
     }
 
+    /**
+     * Precomputed padding, plaintext, and MAC modification of a vector. The
+     * modifiable variables keep state during execution, so each measurement
+     * gets a fresh record wrapping copies of the template bytes.
+     */
+    private static final class RecordTemplate {
+
+        private final String identifier;
+        private final byte[] padding;
+        private final byte[] plainRecordBytes;
+        private final byte[] macXor;
+        private final boolean explicitPlainRecordBytes;
+
+        RecordTemplate(String identifier, byte firstPaddingByte, byte paddingValue, int paddingLength, byte macXorValue, boolean explicitPlainRecordBytes) {
+            this.identifier = identifier;
+            padding = new byte[paddingLength];
+            Arrays.fill(padding, paddingValue);
+            // the first padding byte differs for vectors with invalid padding
+            padding[0] = firstPaddingByte;
+            plainRecordBytes = new byte[PLAIN_RECORD_LENGTH];
+            Arrays.fill(plainRecordBytes, paddingValue);
+            macXor = new byte[] {macXorValue};
+            this.explicitPlainRecordBytes = explicitPlainRecordBytes;
+        }
+
+        String getIdentifier() {
+            return identifier;
+        }
+
+        Record createRecord() {
+            Record preparedRecord = new Record();
+            preparedRecord.setComputations(new RecordCryptoComputations());
+            if (explicitPlainRecordBytes) {
+                preparedRecord.getComputations().setPlainRecordBytes(Modifiable.explicit(plainRecordBytes.clone()));
+            } else {
+                preparedRecord.getComputations().setPlainRecordBytes(Modifiable.dummy(plainRecordBytes.clone()));
+            }
+            preparedRecord.setCleanProtocolMessageBytes(Modifiable.explicit(new byte[0]));
+            preparedRecord.getComputations().setPadding(Modifiable.explicit(padding.clone()));
+            preparedRecord.getComputations().setMac(Modifiable.xor(macXor.clone(), 0));
+            return preparedRecord;
+        }
+    }
 }
@@ -0,0 +1,70 @@
+package de.rub.nds.timingdockerevaluator.task.subtask;
+
+/**
+ * Distributes the measurements of a step among the vectors. Every vector
+ * receives a minimum share of an even split, the remaining budget is
+ * allocated proportionally to the standard deviation of the vector times the
+ * square root of the number of comparisons it still takes part in. This
+ * extends Neyman allocation to comparisons against a shared baseline, for
+ * which the baseline should receive sqrt(k) times the measurements of each of
+ * the k other vectors.
+ */
+public class SampleAllocator {
+
+    private final double minimumShare;
+
+    /**
+     * @param minimumShare share of an even split that every vector receives
+     * regardless of its weight
+     */
+    public SampleAllocator(double minimumShare) {
+        this.minimumShare = minimumShare;
+    }
+
+    public int[] allocate(int budget, double[] standardDeviations, int[] openComparisons) {
+        int vectorCount = standardDeviations.length;
+        int[] allocation = new int[vectorCount];
+        if (vectorCount == 0) {
+            return allocation;
+        }
+        int minimum = (int) Math.ceil(minimumShare * budget / vectorCount);
+        if ((long) minimum * vectorCount > budget) {
+            minimum = budget / vectorCount;
+        }
+        double[] weights = new double[vectorCount];
+        double weightSum = 0;
+        for (int i = 0; i < vectorCount; i++) {
+            allocation[i] = minimum;
+            double deviation = Double.isFinite(standardDeviations[i]) ? standardDeviations[i] : 0;
+            weights[i] = deviation * Math.sqrt(openComparisons[i]);
+            weightSum += weights[i];
+        }
+        int remaining = budget - minimum * vectorCount;
+        if (weightSum <= 0) {
+            for (int i = 0; i < vectorCount; i++) {
+                weights[i] = 1;
+            }
+            weightSum = vectorCount;
+        }
+        // largest remainder method to allocate the entire budget
+        double[] remainders = new double[vectorCount];
+        int allocated = 0;
+        for (int i = 0; i < vectorCount; i++) {
+            double exactShare = remaining * weights[i] / weightSum;
+            allocation[i] += (int) exactShare;
+            allocated += (int) exactShare;
+            remainders[i] = exactShare - (int) exactShare;
+        }
+        for (int leftover = remaining - allocated; leftover > 0; leftover--) {
+            int largest = 0;
+            for (int i = 1; i < vectorCount; i++) {
+                if (remainders[i] > remainders[largest]) {
+                    largest = i;
+                }
+            }
+            allocation[largest]++;
+            remainders[largest] = -1;
+        }
+        return allocation;
+    }
+}
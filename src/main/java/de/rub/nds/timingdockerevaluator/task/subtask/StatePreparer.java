@@ -0,0 +1,96 @@
+package de.rub.nds.timingdockerevaluator.task.subtask;
+
+import de.rub.nds.tlsattacker.core.state.State;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.IntFunction;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Prepares the states of an execution plan in a background thread, such that
+ * configs, traces, and client randoms are ready when the measurement thread
+ * reaches the next position. The bounded queue limits how far preparation runs
+ * ahead of the measurements. States must be taken in the order of the plan,
+ * each position at most once.
+ */
+public class StatePreparer {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final ExecutionPlan executionPlan;
+    private final IntFunction<State> stateFactory;
+    private final BlockingQueue<PreparedState> preparedStates;
+    private final Thread preparerThread;
+    private volatile boolean closed = false;
+
+    public StatePreparer(String name, ExecutionPlan executionPlan, int capacity, IntFunction<State> stateFactory) {
+        this.executionPlan = executionPlan;
+        this.stateFactory = stateFactory;
+        preparedStates = new ArrayBlockingQueue<>(capacity);
+        preparerThread = new Thread(this::prepareStates, "StatePreparer-" + name);
+        preparerThread.setDaemon(true);
+        preparerThread.start();
+    }
+
+    /**
+     * @return the state prepared for the given position or null if preparing
+     * it failed
+     */
+    public State take(int position) throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("Preparer has already been closed");
+        }
+        PreparedState preparedState = preparedStates.take();
+        if (preparedState.position != position) {
+            throw new IllegalStateException("Expected state for position " + position + " but got " + preparedState.position);
+        }
+        return preparedState.state;
+    }
+
+    /**
+     * Stops preparing and discards all states that have not been taken.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        preparerThread.interrupt();
+        try {
+            preparerThread.join();
+        } catch (InterruptedException ex) {
+            LOGGER.warn("Interrupted while waiting for state preparation to stop");
+            Thread.currentThread().interrupt();
+        }
+        preparedStates.clear();
+    }
+
+    private void prepareStates() {
+        for (int position = 0; position < executionPlan.size() && !closed; position++) {
+            State state = null;
+            try {
+                state = stateFactory.apply(executionPlan.getVector(position));
+            } catch (Exception ex) {
+                // the measurement thread prepares the state again
+                LOGGER.warn("Failed to prepare state for position {}", position, ex);
+            }
+            try {
+                preparedStates.put(new PreparedState(position, state));
+            } catch (InterruptedException ex) {
+                return;
+            }
+        }
+    }
+
+    private static class PreparedState {
+
+        private final int position;
+        private final State state;
+
+        PreparedState(int position, State state) {
+            this.position = position;
+            this.state = state;
+        }
+    }
+}
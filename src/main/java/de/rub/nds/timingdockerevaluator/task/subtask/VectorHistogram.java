@@ -0,0 +1,91 @@
+package de.rub.nds.timingdockerevaluator.task.subtask;
+
+import de.rub.nds.timingdockerevaluator.task.eval.LatencyHistogram;
+
+/**
+ * Sparse representation of the latency histogram of a vector as stored in the
+ * subtask report.
+ */
+public class VectorHistogram {
+
+    private int significantDigits;
+    private long highestTrackableValue;
+    private long totalCount;
+    private long min;
+    private long max;
+    private double sum;
+    private String counts;
+
+    public VectorHistogram() {
+    }
+
+    public VectorHistogram(LatencyHistogram histogram) {
+        this.significantDigits = histogram.getSignificantDigits();
+        this.highestTrackableValue = histogram.getHighestTrackableValue();
+        this.totalCount = histogram.getTotalCount();
+        this.min = histogram.getMin();
+        this.max = histogram.getMax();
+        this.sum = histogram.getSum();
+        this.counts = histogram.encodeCounts();
+    }
+
+    public LatencyHistogram toHistogram() {
+        return LatencyHistogram.decode(significantDigits, highestTrackableValue, counts, min, max, sum);
+    }
+
+    public int getSignificantDigits() {
+        return significantDigits;
+    }
+
+    public void setSignificantDigits(int significantDigits) {
+        this.significantDigits = significantDigits;
+    }
+
+    public long getHighestTrackableValue() {
+        return highestTrackableValue;
+    }
+
+    public void setHighestTrackableValue(long highestTrackableValue) {
+        this.highestTrackableValue = highestTrackableValue;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public void setTotalCount(long totalCount) {
+        this.totalCount = totalCount;
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public void setMin(long min) {
+        this.min = min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public void setMax(long max) {
+        this.max = max;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public void setSum(double sum) {
+        this.sum = sum;
+    }
+
+    public String getCounts() {
+        return counts;
+    }
+
+    public void setCounts(String counts) {
+        this.counts = counts;
+    }
+}
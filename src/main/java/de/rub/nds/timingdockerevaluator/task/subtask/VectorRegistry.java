@@ -0,0 +1,58 @@
+package de.rub.nds.timingdockerevaluator.task.subtask;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns dense ids to the vectors of a subtask in registration order. The
+ * measurement loop, the stores, and the statistics address vectors by id,
+ * names are only resolved for output.
+ *
+ * @param <P> the precomputed payload a subtask needs to measure a vector
+ */
+public class VectorRegistry<P> {
+
+    private final List<String> names = new ArrayList<>();
+    private final List<P> payloads = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    /**
+     * @return the id of the registered vector
+     */
+    public int register(String name, P payload) {
+        if (ids.containsKey(name)) {
+            throw new IllegalArgumentException("Vector " + name + " is already registered");
+        }
+        int id = names.size();
+        names.add(name);
+        payloads.add(payload);
+        ids.put(name, id);
+        return id;
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    public String getName(int id) {
+        return names.get(id);
+    }
+
+    public P getPayload(int id) {
+        return payloads.get(id);
+    }
+
+    /**
+     * @return the id of the vector or -1 if no such vector is registered
+     */
+    public int getId(String name) {
+        return ids.getOrDefault(name, -1);
+    }
+
+    public List<String> getNames() {
+        return Collections.unmodifiableList(names);
+    }
+}
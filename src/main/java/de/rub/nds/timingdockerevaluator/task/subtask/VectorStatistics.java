@@ -0,0 +1,97 @@
+package de.rub.nds.timingdockerevaluator.task.subtask;
+
+import de.rub.nds.timingdockerevaluator.task.eval.RunningStatistics;
+
+/**
+ * Snapshot of the running statistics of a vector as stored in the subtask
+ * report.
+ */
+public class VectorStatistics {
+
+    private long count;
+    private double mean;
+    private double standardDeviation;
+    private long min;
+    private long max;
+    private double lowerDecile;
+    private double median;
+    private double upperDecile;
+
+    public VectorStatistics() {
+    }
+
+    public VectorStatistics(RunningStatistics statistics) {
+        this.count = statistics.getCount();
+        this.mean = statistics.getMean();
+        this.standardDeviation = statistics.getStandardDeviation();
+        this.min = statistics.getMin();
+        this.max = statistics.getMax();
+        this.lowerDecile = statistics.getLowerDecile();
+        this.median = statistics.getMedian();
+        this.upperDecile = statistics.getUpperDecile();
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public void setMean(double mean) {
+        this.mean = mean;
+    }
+
+    public double getStandardDeviation() {
+        return standardDeviation;
+    }
+
+    public void setStandardDeviation(double standardDeviation) {
+        this.standardDeviation = standardDeviation;
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public void setMin(long min) {
+        this.min = min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public void setMax(long max) {
+        this.max = max;
+    }
+
+    public double getLowerDecile() {
+        return lowerDecile;
+    }
+
+    public void setLowerDecile(double lowerDecile) {
+        this.lowerDecile = lowerDecile;
+    }
+
+    public double getMedian() {
+        return median;
+    }
+
+    public void setMedian(double median) {
+        this.median = median;
+    }
+
+    public double getUpperDecile() {
+        return upperDecile;
+    }
+
+    public void setUpperDecile(double upperDecile) {
+        this.upperDecile = upperDecile;
+    }
+}
@@ -0,0 +1,133 @@
+package de.rub.nds.timingdockerevaluator.util;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Client for the control server running inside the docker containers. All
+ * clients share one HTTP/1.1 client, so connections to a target are kept
+ * alive between requests. Requests are bounded by the configured timeout.
+ * Only port requests are retried with exponential backoff, since repeating
+ * e.g. a kill request that reached the server would kill it twice.
+ */
+public class ContainerControlClient {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+    public static final int CONTROL_PORT = 8090;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long INITIAL_BACKOFF_MS = 50;
+    private static final int HTTP_OK = 200;
+
+    private static HttpClient sharedHttpClient;
+    private static Duration sharedConnectTimeout;
+
+    private final String ip;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failedRequests = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    public ContainerControlClient(String ip, Duration timeout) {
+        this.ip = ip;
+        this.timeout = timeout;
+        this.httpClient = getHttpClient(timeout);
+    }
+
+    private static synchronized HttpClient getHttpClient(Duration connectTimeout) {
+        if (sharedHttpClient == null || !connectTimeout.equals(sharedConnectTimeout)) {
+            sharedHttpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(connectTimeout)
+                    .build();
+            sharedConnectTimeout = connectTimeout;
+        }
+        return sharedHttpClient;
+    }
+
+    /**
+     * @return the lines of the response
+     * @throws IOException if all attempts failed
+     */
+    public List<String> query(String endpoint) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://" + ip + ":" + CONTROL_PORT + "/" + endpoint))
+                .timeout(timeout)
+                .GET()
+                .build();
+        IOException lastException = null;
+        long backoff = INITIAL_BACKOFF_MS;
+        int maxAttempts = isRetryable(endpoint) ? MAX_ATTEMPTS : 1;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            long start = System.nanoTime();
+            try {
+                HttpResponse<String> response;
+                try {
+                    response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                } finally {
+                    recordLatency(System.nanoTime() - start);
+                }
+                if (response.statusCode() != HTTP_OK) {
+                    throw new IOException("Control server answered " + endpoint + " with status " + response.statusCode());
+                }
+                return response.body().lines().collect(Collectors.toList());
+            } catch (IOException ex) {
+                failedRequests.incrementAndGet();
+                lastException = ex;
+                LOGGER.debug("Control request {} to {} failed in attempt {}", endpoint, ip, attempt, ex);
+            }
+            if (attempt < maxAttempts) {
+                Thread.sleep(backoff);
+                backoff *= 2;
+            }
+        }
+        throw lastException;
+    }
+
+    private static boolean isRetryable(String endpoint) {
+        return HttpUtil.REQUEST_PORT_PATH.equals(endpoint);
+    }
+
+    private void recordLatency(long latencyNanos) {
+        requests.incrementAndGet();
+        totalLatencyNanos.addAndGet(latencyNanos);
+        maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+    }
+
+    public String getIp() {
+        return ip;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getFailedRequests() {
+        return failedRequests.get();
+    }
+
+    public double getMeanLatencyMillis() {
+        long requestCount = requests.get();
+        return requestCount > 0 ? totalLatencyNanos.get() / 1_000_000.0 / requestCount : 0;
+    }
+
+    public double getMaxLatencyMillis() {
+        return maxLatencyNanos.get() / 1_000_000.0;
+    }
+
+    public void logMetrics() {
+        if (getRequests() > 0) {
+            LOGGER.info("Control server of {} answered {} requests ({} failed) with a mean latency of {} ms (max {} ms)", ip, getRequests(), getFailedRequests(), String.format("%.2f", getMeanLatencyMillis()), String.format("%.2f", getMaxLatencyMillis()));
+        }
+    }
+}
@@ -1,13 +1,9 @@
 package de.rub.nds.timingdockerevaluator.util;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.URL;
-import java.net.URLConnection;
-import java.util.LinkedList;
+import java.time.Duration;
 import java.util.List;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class HttpUtil {
     
@@ -15,20 +11,30 @@ public class HttpUtil {
     public static final String ENABLE_PORT_SWITCHING = "enableportswitch";
     public static final String KILL_SERVER = "killserver";
     
-    public static List<String> queryDockerHttpServer(String ip, String endpoint) throws Exception {
-        URL urlTarget = new URL("http://" + ip + ":8090/" + endpoint);
-        URLConnection urlConnection = urlTarget.openConnection();
-        BufferedReader in = new BufferedReader(
-                                new InputStreamReader(
-                                urlConnection.getInputStream()));
-        List<String> outputs = new LinkedList<>();
-        String inputLine;
-        while ((inputLine = in.readLine()) != null)  {
-            outputs.add(inputLine);
+    private static final Map<String, ContainerControlClient> CONTROL_CLIENTS = new ConcurrentHashMap<>();
+    private static Duration controlTimeout = Duration.ofMillis(2000);
+    
+    public static void setControlTimeout(int timeoutMs) {
+        controlTimeout = Duration.ofMillis(timeoutMs);
+    }
+    
+    public static ContainerControlClient getControlClient(String ip) {
+        return CONTROL_CLIENTS.computeIfAbsent(ip, clientIp -> new ContainerControlClient(clientIp, controlTimeout));
+    }
+    
+    /**
+     * Drops the control client of a target that is no longer used and logs its
+     * request metrics.
+     */
+    public static void releaseControlClient(String ip) {
+        ContainerControlClient client = CONTROL_CLIENTS.remove(ip);
+        if (client != null) {
+            client.logMetrics();
         }
-            
-        in.close();
-        return outputs;
+    }
+    
+    public static List<String> queryDockerHttpServer(String ip, String endpoint) throws Exception {
+        return getControlClient(ip).query(endpoint);
     }
     
     public static boolean enablePortSwitiching(String ip) {
@@ -40,6 +46,8 @@ public class HttpUtil {
                     return true;
                 }
             }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
         } catch (Exception ex) {
         }
         return false;
@@ -54,15 +62,36 @@ public class HttpUtil {
                     return Integer.parseInt(reportedPort);
                 }
             }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return fallbackPort;
         } catch (Exception ex) {
             return fallbackPort;
         }
         return fallbackPort;
     }
     
+    /**
+     * @return true if the control server answers a port request, which does
+     * not touch the TLS server
+     */
+    public static boolean isControlServerReachable(String ip) {
+        try {
+            queryDockerHttpServer(ip, REQUEST_PORT_PATH);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception ex) {
+            return false;
+        }
+    }
+    
     public static void killServer(String ip) {
         try {
             queryDockerHttpServer(ip, KILL_SERVER);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
         } catch (Exception ignored) {
         }
     }
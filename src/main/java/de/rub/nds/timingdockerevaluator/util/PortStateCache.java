@@ -0,0 +1,86 @@
+package de.rub.nds.timingdockerevaluator.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Last known port of a target that switches its server port upon restart.
+ * The port is only queried from the docker http server if it is unknown, once
+ * taken for a connection it is considered stale since the server will restart
+ * on a new port. Connect failures force a new query. Optionally, a background
+ * poller queries the next port as soon as a handshake has finished.
+ */
+public class PortStateCache {
+
+    private final String ip;
+    private final int fallbackPort;
+    private final ExecutorService poller;
+    private final AtomicBoolean refreshPending = new AtomicBoolean(false);
+    private int port;
+    private boolean valid = false;
+
+    public PortStateCache(String ip, int fallbackPort, boolean pollInBackground) {
+        this.ip = ip;
+        this.fallbackPort = fallbackPort;
+        if (pollInBackground) {
+            poller = Executors.newSingleThreadExecutor(runnable -> {
+                Thread pollerThread = new Thread(runnable, "PortPoller-" + ip);
+                pollerThread.setDaemon(true);
+                return pollerThread;
+            });
+        } else {
+            poller = null;
+        }
+    }
+
+    /**
+     * @return the last known port, which is queried if unknown
+     */
+    public synchronized int getPort() {
+        if (!valid) {
+            port = HttpUtil.getCurrentPort(ip, fallbackPort);
+            valid = true;
+        }
+        return port;
+    }
+
+    /**
+     * Returns the port for the next connection and marks it as stale.
+     */
+    public synchronized int takePort() {
+        int nextPort = getPort();
+        valid = false;
+        return nextPort;
+    }
+
+    /**
+     * Queries the port again, e.g. since connecting to the known port failed.
+     */
+    public synchronized int refresh() {
+        valid = false;
+        return getPort();
+    }
+
+    /**
+     * Marks the port as stale after a handshake and queries the next port in
+     * the background if enabled.
+     */
+    public void handshakeFinished() {
+        synchronized (this) {
+            valid = false;
+        }
+        if (poller != null && refreshPending.compareAndSet(false, true)) {
+            poller.submit(() -> {
+                refreshPending.set(false);
+                getPort();
+            });
+        }
+    }
+
+    public void close() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package de.rub.nds.timingdockerevaluator.util;
+
+import de.rub.nds.timingdockerevaluator.task.eval.LatencyHistogram;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntPredicate;
+import java.util.function.IntSupplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Polls a target until it is ready instead of sleeping for a fixed time after
+ * a container or server (re)start. Attempts are repeated with exponential
+ * backoff until the deadline. A newly started container is probed on its TLS
+ * port, optionally sending a ClientHello and only considering the target
+ * ready once it answers with a TLS record. Restarts right before measurements
+ * are only detected through the control server, since the first connection
+ * of a fresh server must be the measured one and every connection moves a
+ * port switching server to its next port. The time until a target became
+ * ready is recorded in a startup latency histogram per image.
+ */
+public class ReadinessProbe {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final long INITIAL_BACKOFF_MS = 5;
+    private static final long MAX_BACKOFF_MS = 250;
+    private static final int MAX_ATTEMPT_TIMEOUT_MS = 1000;
+    private static final int HISTOGRAM_PRECISION = 3;
+
+    private static final byte CONTENT_TYPE_ALERT = 0x15;
+    private static final byte CONTENT_TYPE_HANDSHAKE = 0x16;
+    private static final int[] PROBE_CIPHER_SUITES = {0x002F, 0x0035, 0x003C, 0x003D, 0x009C, 0x009D, 0xC013, 0xC014, 0xC02F, 0xC030};
+
+    private static final Map<String, LatencyHistogram> STARTUP_LATENCIES = new ConcurrentHashMap<>();
+
+    private final String image;
+    private final Duration deadline;
+
+    public ReadinessProbe(String image, Duration deadline) {
+        this.image = image;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Waits until the target accepts connections and records the time since
+     * the (re)start in the startup latency histogram of the image.
+     *
+     * @param portSupplier queried for each attempt since the port may change
+     * @param sendClientHello also require a TLS record in response to a
+     * ClientHello
+     * @param startedAt System.nanoTime() at which the (re)start was triggered
+     * @return false if the target did not become ready before the deadline
+     */
+    public boolean awaitReady(String host, IntSupplier portSupplier, boolean sendClientHello, long startedAt) {
+        return poll(host, "TLS port", true, startedAt, timeoutMs -> probe(host, portSupplier.getAsInt(), sendClientHello, timeoutMs));
+    }
+
+    /**
+     * Waits until the control server of a (re)started container answers
+     * without connecting to the TLS port and records the time since the
+     * (re)start in the startup latency histogram of the image.
+     *
+     * @param startedAt System.nanoTime() at which the (re)start was triggered
+     * @return false if the control server did not answer before the deadline
+     */
+    public boolean awaitControlServer(String host, long startedAt) {
+        return poll(host, "control server", true, startedAt, timeoutMs -> HttpUtil.isControlServerReachable(host));
+    }
+
+    /**
+     * Waits until the control server of a port switching target reports a
+     * port other than the given one, i.e. until the server was restarted on
+     * its next port.
+     *
+     * @return false if the port did not change before the deadline
+     */
+    public boolean awaitPortChange(String host, int previousPort, long startedAt) {
+        return poll(host, "port change", false, startedAt, timeoutMs -> HttpUtil.getCurrentPort(host, previousPort) != previousPort);
+    }
+
+    /**
+     * Repeats a request to the control server, e.g. one that fails while the
+     * server is still starting, until it succeeds.
+     *
+     * @return false if the request did not succeed before the deadline
+     */
+    public boolean retry(String host, String request, BooleanSupplier attempt) {
+        return poll(host, request, false, System.nanoTime(), timeoutMs -> attempt.getAsBoolean());
+    }
+
+    private boolean poll(String host, String condition, boolean startup, long startedAt, IntPredicate attempt) {
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        long backoff = INITIAL_BACKOFF_MS;
+        int attempts = 0;
+        while (true) {
+            attempts++;
+            long remainingMs = (deadlineNanos - System.nanoTime()) / 1_000_000;
+            if (attempt.test((int) Math.max(1, Math.min(remainingMs, MAX_ATTEMPT_TIMEOUT_MS)))) {
+                long latency = System.nanoTime() - startedAt;
+                if (startup) {
+                    recordStartupLatency(latency);
+                }
+                LOGGER.debug("{} of {} at {} was ready after {} ms and {} attempts", condition, image, host, latency / 1_000_000, attempts);
+                return true;
+            }
+            remainingMs = (deadlineNanos - System.nanoTime()) / 1_000_000;
+            if (remainingMs <= 0) {
+                LOGGER.warn("{} of {} at {} was not ready within {} ms ({} attempts)", condition, image, host, deadline.toMillis(), attempts);
+                return false;
+            }
+            try {
+                Thread.sleep(Math.min(backoff, remainingMs));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+        }
+    }
+
+    private boolean probe(String host, int port, boolean sendClientHello, int timeoutMs) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, port), timeoutMs);
+            if (!sendClientHello) {
+                return true;
+            }
+            socket.setSoTimeout(timeoutMs);
+            OutputStream outputStream = socket.getOutputStream();
+            outputStream.write(createClientHello());
+            outputStream.flush();
+            InputStream inputStream = socket.getInputStream();
+            int contentType = inputStream.read();
+            // any alert still shows that the TLS stack is up
+            return contentType == CONTENT_TYPE_HANDSHAKE || contentType == CONTENT_TYPE_ALERT;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * @return a TLS 1.2 ClientHello record offering common RSA and ECDHE_RSA
+     * cipher suites without extensions
+     */
+    static byte[] createClientHello() {
+        int cipherSuitesLength = PROBE_CIPHER_SUITES.length * 2;
+        int bodyLength = 2 + 32 + 1 + 2 + cipherSuitesLength + 2;
+        int handshakeLength = 4 + bodyLength;
+        byte[] record = new byte[5 + handshakeLength];
+        int offset = 0;
+        record[offset++] = CONTENT_TYPE_HANDSHAKE;
+        record[offset++] = 0x03;
+        record[offset++] = 0x01;
+        record[offset++] = (byte) (handshakeLength >> 8);
+        record[offset++] = (byte) handshakeLength;
+        // client hello
+        record[offset++] = 0x01;
+        record[offset++] = (byte) (bodyLength >> 16);
+        record[offset++] = (byte) (bodyLength >> 8);
+        record[offset++] = (byte) bodyLength;
+        record[offset++] = 0x03;
+        record[offset++] = 0x03;
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        System.arraycopy(random, 0, record, offset, random.length);
+        offset += random.length;
+        // empty session id
+        record[offset++] = 0x00;
+        record[offset++] = (byte) (cipherSuitesLength >> 8);
+        record[offset++] = (byte) cipherSuitesLength;
+        for (int cipherSuite : PROBE_CIPHER_SUITES) {
+            record[offset++] = (byte) (cipherSuite >> 8);
+            record[offset++] = (byte) cipherSuite;
+        }
+        // null compression only
+        record[offset++] = 0x01;
+        record[offset++] = 0x00;
+        return record;
+    }
+
+    private void recordStartupLatency(long latencyNanos) {
+        LatencyHistogram histogram = STARTUP_LATENCIES.computeIfAbsent(image, key -> new LatencyHistogram(HISTOGRAM_PRECISION));
+        synchronized (histogram) {
+            histogram.record(latencyNanos);
+        }
+    }
+
+    public void logStartupLatency() {
+        LatencyHistogram histogram = STARTUP_LATENCIES.get(image);
+        if (histogram == null) {
+            return;
+        }
+        synchronized (histogram) {
+            LOGGER.info("Startup latency of {} over {} (re)starts: median {} ms, p90 {} ms, max {} ms", image, histogram.getTotalCount(), toMillis(histogram.getValueAtQuantile(0.5)), toMillis(histogram.getValueAtQuantile(0.9)), toMillis(histogram.getMax()));
+        }
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format("%.1f", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,22 @@
+package de.rub.nds.timingdockerevaluator.util;
+
+public enum ResultFileFormat {
+    CSV("Text files with one measurement per line", ".csv"),
+    BINARY("Compact binary files with delta-encoded measurements (convert to CSV using -convert)", ".bin");
+    
+    private final String description;
+    private final String fileExtension;
+    
+    private ResultFileFormat(String description, String fileExtension) {
+        this.description = description;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+}
@@ -0,0 +1,16 @@
+package de.rub.nds.timingdockerevaluator.util;
+
+public enum ResultFileLayout {
+    PAIRWISE("One file for each compared pair of vectors"),
+    PER_VECTOR("One file for each vector and a manifest listing the compared pairs (pair files can be created using -convert)");
+    
+    private final String description;
+    
+    private ResultFileLayout(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
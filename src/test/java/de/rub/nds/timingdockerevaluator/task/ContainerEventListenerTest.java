@@ -0,0 +1,114 @@
+package de.rub.nds.timingdockerevaluator.task;
+
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.EventActor;
+import java.util.Collections;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ContainerEventListenerTest {
+
+    private static final String CONTAINER_ID = "0123456789ab";
+
+    private ContainerEventListener listener;
+    // start time of the container on the daemon clock in seconds
+    private long startedAt;
+
+    @Before
+    public void setUp() {
+        // a closed listener does not subscribe to the docker event stream
+        listener = new ContainerEventListener(null);
+        listener.close();
+        startedAt = 1_700_000_000L;
+        listener.register(CONTAINER_ID, startedAt * 1_000_000_000);
+    }
+
+    private static Event createEvent(String action, String containerId, long timeSeconds) {
+        return new Event(action, containerId, "tls-server", timeSeconds);
+    }
+
+    @Test
+    public void testRegisteredContainerIsRunning() {
+        assertTrue(listener.isRegistered(CONTAINER_ID));
+        assertFalse(listener.isDown(CONTAINER_ID));
+        assertFalse(listener.isOutOfMemory(CONTAINER_ID));
+    }
+
+    @Test
+    public void testDeathAfterRegistration() {
+        listener.handleEvent(createEvent(ContainerEventListener.EVENT_DIE, CONTAINER_ID, startedAt + 10));
+        assertTrue(listener.isDown(CONTAINER_ID));
+    }
+
+    @Test
+    public void testStartAfterDeath() {
+        listener.handleEvent(createEvent(ContainerEventListener.EVENT_DIE, CONTAINER_ID, startedAt + 10));
+        listener.handleEvent(createEvent(ContainerEventListener.EVENT_START, CONTAINER_ID, startedAt + 20));
+        assertFalse(listener.isDown(CONTAINER_ID));
+    }
+
+    @Test
+    public void testLateDeathOfEarlierRun() {
+        listener.handleEvent(createEvent(ContainerEventListener.EVENT_START, CONTAINER_ID, startedAt + 20));
+        // delivered after the start but happened before it, e.g. during a restart of our own
+        listener.handleEvent(createEvent(ContainerEventListener.EVENT_DIE, CONTAINER_ID, startedAt + 15));
+        assertFalse(listener.isDown(CONTAINER_ID));
+        listener.handleEvent(createEvent(ContainerEventListener.EVENT_DIE, CONTAINER_ID, startedAt + 25));
+        assertTrue(listener.isDown(CONTAINER_ID));
+    }
+
+    @Test
+    public void testDeathBeforeRegistration() {
+        listener.handleEvent(createEvent(ContainerEventListener.EVENT_DIE, CONTAINER_ID, startedAt - 10));
+        assertFalse(listener.isDown(CONTAINER_ID));
+    }
+
+    @Test
+    public void testOutOfMemory() {
+        listener.handleEvent(createEvent(ContainerEventListener.EVENT_OOM, CONTAINER_ID, startedAt + 10));
+        assertTrue(listener.isDown(CONTAINER_ID));
+        assertTrue(listener.isOutOfMemory(CONTAINER_ID));
+        listener.handleEvent(createEvent(ContainerEventListener.EVENT_START, CONTAINER_ID, startedAt + 20));
+        assertFalse(listener.isDown(CONTAINER_ID));
+        assertFalse(listener.isOutOfMemory(CONTAINER_ID));
+    }
+
+    @Test
+    public void testMarkStartedUsesDaemonTime() {
+        listener.handleEvent(createEvent(ContainerEventListener.EVENT_DIE, CONTAINER_ID, startedAt + 10));
+        // a start before the death, e.g. reported by a restart that had already completed
+        listener.markStarted(CONTAINER_ID, ContainerEventListener.parseDockerTime("2023-11-14T22:13:25.5Z"));
+        assertTrue(listener.isDown(CONTAINER_ID));
+        listener.markStarted(CONTAINER_ID, ContainerEventListener.parseDockerTime("2023-11-14T22:13:30.000000001Z"));
+        assertFalse(listener.isDown(CONTAINER_ID));
+    }
+
+    @Test
+    public void testParseDockerTime() {
+        assertEquals(startedAt * 1_000_000_000 + 80_254_511, ContainerEventListener.parseDockerTime("2023-11-14T22:13:20.080254511Z"));
+    }
+
+    @Test
+    public void testIgnoresUnregisteredContainers() {
+        listener.handleEvent(createEvent(ContainerEventListener.EVENT_DIE, "ba9876543210", startedAt + 10));
+        assertFalse(listener.isDown(CONTAINER_ID));
+        assertFalse(listener.isDown("ba9876543210"));
+        listener.unregister(CONTAINER_ID);
+        listener.handleEvent(createEvent(ContainerEventListener.EVENT_DIE, CONTAINER_ID, startedAt + 10));
+        assertFalse(listener.isRegistered(CONTAINER_ID));
+        assertFalse(listener.isDown(CONTAINER_ID));
+    }
+
+    @Test
+    public void testIgnoresContainersOfOtherTools() {
+        EventActor actor = new EventActor().withId(CONTAINER_ID).withAttributes(Collections.singletonMap("name", "other-container"));
+        listener.handleEvent(createEvent(ContainerEventListener.EVENT_DIE, CONTAINER_ID, startedAt + 10).withActor(actor));
+        assertFalse(listener.isDown(CONTAINER_ID));
+        actor = new EventActor().withId(CONTAINER_ID).withAttributes(Collections.singletonMap("name", EvaluationTask.CONTAINER_NAME_PREFIX + "target"));
+        listener.handleEvent(createEvent(ContainerEventListener.EVENT_DIE, CONTAINER_ID, startedAt + 10).withActor(actor));
+        assertTrue(listener.isDown(CONTAINER_ID));
+    }
+}
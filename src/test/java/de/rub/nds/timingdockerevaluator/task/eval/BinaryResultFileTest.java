@@ -0,0 +1,96 @@
+package de.rub.nds.timingdockerevaluator.task.eval;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BinaryResultFileTest {
+
+    private static final List<String> VECTOR_NAMES = Arrays.asList("baseline", "modified");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static HeapMeasurementStore createStore(int measurementsPerVector) {
+        HeapMeasurementStore store = new HeapMeasurementStore(VECTOR_NAMES, measurementsPerVector);
+        for (int i = 0; i < measurementsPerVector; i++) {
+            // alternating values result in negative deltas
+            store.add(0, 1_000_000 + (i % 2 == 0 ? i : -i));
+            store.add(1, Long.MAX_VALUE / 2 - i * 7919L);
+        }
+        return store;
+    }
+
+    private static void write(File file, boolean append, MeasurementStore store) throws IOException {
+        try (DataOutputStream outputStream = BinaryResultFile.openForWriting(file, append, "TLS_RSA_WITH_AES_128_CBC_SHA", "TLS12", VECTOR_NAMES)) {
+            BinaryResultFile.writeVector(outputStream, 0, store, 0);
+            BinaryResultFile.writeVector(outputStream, 1, store, 1);
+        }
+    }
+
+    private static List<long[]> read(File file, List<String> readNames) throws IOException {
+        List<long[]> measurements = new LinkedList<>();
+        BinaryResultFile.readMeasurements(file, new BinaryResultFile.MeasurementVisitor() {
+            @Override
+            public void visitHeader(List<String> vectorNames) {
+                readNames.addAll(vectorNames);
+            }
+
+            @Override
+            public void visit(int slot, long measured) {
+                measurements.add(new long[]{slot, measured});
+            }
+        });
+        return measurements;
+    }
+
+    @Test
+    public void testRoundTripAcrossBlocks() throws IOException {
+        File file = new File(temporaryFolder.getRoot(), "results/measurements.bin");
+        HeapMeasurementStore store = createStore(10_000);
+        write(file, false, store);
+        List<String> readNames = new LinkedList<>();
+        List<long[]> measurements = read(file, readNames);
+        assertEquals(VECTOR_NAMES, readNames);
+        assertEquals(20_000, measurements.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(0, measurements.get(i)[0]);
+            assertEquals(store.get(0, i), measurements.get(i)[1]);
+            assertEquals(1, measurements.get(10_000 + i)[0]);
+            assertEquals(store.get(1, i), measurements.get(10_000 + i)[1]);
+        }
+    }
+
+    @Test
+    public void testAppendWritesHeaderOnce() throws IOException {
+        File file = temporaryFolder.newFile("measurements.bin");
+        write(file, true, createStore(10));
+        write(file, true, createStore(5));
+        List<String> readNames = new LinkedList<>();
+        List<long[]> measurements = read(file, readNames);
+        assertEquals(VECTOR_NAMES, readNames);
+        assertEquals(30, measurements.size());
+    }
+
+    @Test
+    public void testConvertToCsv() throws IOException {
+        File binaryFile = temporaryFolder.newFile("measurements.bin");
+        File csvFile = temporaryFolder.newFile("measurements.csv");
+        HeapMeasurementStore store = createStore(2);
+        write(binaryFile, false, store);
+        BinaryResultFile.convertToCsv(binaryFile, csvFile);
+        List<String> expected = Arrays.asList("V1,V2",
+                "BASELINE, " + store.get(0, 0), "BASELINE, " + store.get(0, 1),
+                "MODIFIED, " + store.get(1, 0), "MODIFIED, " + store.get(1, 1));
+        assertEquals(expected, Files.readAllLines(csvFile.toPath(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,80 @@
+package de.rub.nds.timingdockerevaluator.task.eval;
+
+import java.util.SplittableRandom;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testMergeEqualsDirectRecording() {
+        LatencyHistogram first = new LatencyHistogram(3);
+        LatencyHistogram second = new LatencyHistogram(3);
+        LatencyHistogram combined = new LatencyHistogram(3);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 10_000; i++) {
+            long value = 100_000 + random.nextLong(5_000_000);
+            (i % 3 == 0 ? first : second).record(value);
+            combined.record(value);
+        }
+        first.merge(second);
+        assertEquals(combined.getTotalCount(), first.getTotalCount());
+        assertEquals(combined.getMin(), first.getMin());
+        assertEquals(combined.getMax(), first.getMax());
+        assertEquals(combined.getSum(), first.getSum(), 1e-3);
+        assertEquals(combined.encodeCounts(), first.encodeCounts());
+        for (double quantile : new double[]{0, 0.1, 0.5, 0.9, 0.99, 1}) {
+            assertEquals(combined.getValueAtQuantile(quantile), first.getValueAtQuantile(quantile));
+        }
+    }
+
+    @Test
+    public void testMergeEmptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram(2);
+        histogram.record(1000);
+        histogram.merge(new LatencyHistogram(2));
+        assertEquals(1, histogram.getTotalCount());
+        assertEquals(1000, histogram.getMin());
+        assertEquals(1000, histogram.getMax());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeDifferentPrecision() {
+        new LatencyHistogram(2).merge(new LatencyHistogram(3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeDifferentRange() {
+        new LatencyHistogram(2).merge(new LatencyHistogram(2, 1_000_000));
+    }
+
+    @Test
+    public void testEncodeDecode() {
+        LatencyHistogram histogram = new LatencyHistogram(2, 1_000_000);
+        for (long value = 1; value < 2_000_000; value *= 3) {
+            histogram.record(value);
+        }
+        LatencyHistogram decoded = LatencyHistogram.decode(2, 1_000_000, histogram.encodeCounts(), histogram.getMin(), histogram.getMax(), histogram.getSum());
+        assertEquals(histogram.getTotalCount(), decoded.getTotalCount());
+        assertEquals(histogram.getMin(), decoded.getMin());
+        assertEquals(histogram.getMax(), decoded.getMax());
+        assertEquals(histogram.encodeCounts(), decoded.encodeCounts());
+        assertEquals(histogram.getValueAtQuantile(0.5), decoded.getValueAtQuantile(0.5));
+    }
+
+    @Test
+    public void testQuantilePrecision() {
+        LatencyHistogram histogram = new LatencyHistogram(3);
+        for (long value = 1; value <= 1_000_000; value++) {
+            histogram.record(value * 1000);
+        }
+        for (double quantile : new double[]{0.01, 0.25, 0.5, 0.75, 0.99}) {
+            double exact = quantile * 1_000_000_000L;
+            double relativeError = Math.abs(histogram.getValueAtQuantile(quantile) - exact) / exact;
+            assertTrue("Quantile " + quantile + " off by " + relativeError, relativeError <= 1e-3);
+        }
+        assertEquals(1000, histogram.getValueAtQuantile(0));
+        assertEquals(1_000_000_000L, histogram.getValueAtQuantile(1));
+    }
+}
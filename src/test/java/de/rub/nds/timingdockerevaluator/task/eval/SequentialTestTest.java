@@ -0,0 +1,83 @@
+package de.rub.nds.timingdockerevaluator.task.eval;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class SequentialTestTest {
+
+    private static final List<String> IDENTIFIERS = Arrays.asList("A", "B", "C", "D");
+
+    private static MeasurementReservoir createReservoir(long seed, long shift) {
+        MeasurementReservoir reservoir = new MeasurementReservoir(1000, new SplittableRandom(seed));
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < 1000; i++) {
+            reservoir.add(1_000_000 + random.nextLong(10_000) + shift);
+        }
+        return reservoir;
+    }
+
+    @Test
+    public void testPairs() {
+        assertEquals(6, new SequentialTest(0.01, IDENTIFIERS, "B", true).getPairCount());
+        SequentialTest baselineTest = new SequentialTest(0.01, IDENTIFIERS, "B", false);
+        assertEquals(3, baselineTest.getPairCount());
+        for (int i = 0; i < baselineTest.getPairCount(); i++) {
+            assertEquals(1, baselineTest.getPair(i)[0]);
+        }
+        assertArrayEquals(new int[]{1, 3, 1, 1}, baselineTest.getOpenComparisons(4));
+    }
+
+    @Test
+    public void testSpendingBound() {
+        SequentialTest test = new SequentialTest(0.05, IDENTIFIERS, "A", false);
+        assertEquals(0, test.getSpendingBound(0), 1e-12);
+        assertEquals(0.05, test.getSpendingBound(1), 1e-12);
+        assertTrue(test.getSpendingBound(0.25) < test.getSpendingBound(0.5));
+    }
+
+    @Test
+    public void testDetectsShiftedVector() {
+        SequentialTest test = new SequentialTest(0.01, IDENTIFIERS, "A", false);
+        // B is shifted, C and D are identical to the baseline
+        MeasurementReservoir[] reservoirs = {createReservoir(1, 0), createReservoir(2, 5000), createReservoir(1, 0), createReservoir(1, 0)};
+        test.analyzeStep(reservoirs, 0.25);
+        assertEquals(SequentialTest.Verdict.DIFFERENCE, test.getVerdict(0));
+        assertEquals(SequentialTest.Verdict.UNDECIDED, test.getVerdict(1));
+        assertEquals(SequentialTest.Verdict.UNDECIDED, test.getVerdict(2));
+        assertFalse(test.isDecided());
+        test.analyzeStep(reservoirs, 0.5);
+        assertEquals(SequentialTest.Verdict.DIFFERENCE, test.getVerdict(0));
+        assertEquals(SequentialTest.Verdict.NO_DIFFERENCE, test.getVerdict(1));
+        assertEquals(SequentialTest.Verdict.NO_DIFFERENCE, test.getVerdict(2));
+        assertTrue(test.isDecided());
+        assertArrayEquals(new int[4], test.getOpenComparisons(4));
+    }
+
+    @Test
+    public void testIdenticalVectorsNeverDiffer() {
+        SequentialTest test = new SequentialTest(0.05, IDENTIFIERS, "A", true);
+        MeasurementReservoir[] reservoirs = {createReservoir(3, 0), createReservoir(3, 0), createReservoir(3, 0), createReservoir(3, 0)};
+        for (double fraction = 0.1; !test.isDecided(); fraction += 0.1) {
+            test.analyzeStep(reservoirs, fraction);
+            assertTrue(fraction < 0.55);
+        }
+        for (int i = 0; i < test.getPairCount(); i++) {
+            assertEquals(SequentialTest.Verdict.NO_DIFFERENCE, test.getVerdict(i));
+        }
+    }
+
+    @Test
+    public void testSkipsEmptySamples() {
+        SequentialTest test = new SequentialTest(0.05, IDENTIFIERS, "A", false);
+        MeasurementReservoir empty = new MeasurementReservoir(10, new SplittableRandom(0));
+        test.analyzeStep(new MeasurementReservoir[]{empty, empty, empty, empty}, 1);
+        assertFalse(test.isDecided());
+        assertTrue(Double.isNaN(test.getPValue(0)));
+    }
+}
@@ -0,0 +1,52 @@
+package de.rub.nds.timingdockerevaluator.task.eval;
+
+import de.rub.nds.timingdockerevaluator.util.ResultFileFormat;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class VectorManifestTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private void writeVectorFile(String name, long... measurements) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(new File(temporaryFolder.getRoot(), name)))) {
+            writer.write("V");
+            writer.newLine();
+            for (long measured : measurements) {
+                writer.write(Long.toString(measured));
+                writer.newLine();
+            }
+        }
+    }
+
+    @Test
+    public void testParseLine() {
+        assertEquals(Arrays.asList("a", "b,c", "d\"e", ""), VectorManifest.parseLine("a,\"b,c\",\"d\"\"e\","));
+    }
+
+    @Test
+    public void testIdentifiersWithSeparators() throws IOException {
+        String baseline = "Plain,FF";
+        String modified = "\"quoted\"";
+        writeVectorFile(baseline + ResultFileFormat.CSV.getFileExtension(), 10, 11);
+        writeVectorFile(modified + ResultFileFormat.CSV.getFileExtension(), 20);
+        File manifestFile = new File(temporaryFolder.getRoot(), VectorManifest.FILE_NAME);
+        VectorEvaluationTask task = new VectorEvaluationTask(baseline, modified, new File(temporaryFolder.getRoot(), "pair,1.csv").getPath());
+        VectorManifest.write(manifestFile, Collections.singletonList(task), ResultFileFormat.CSV);
+        assertEquals(1, VectorManifest.materializePairFiles(manifestFile));
+        List<String> lines = Files.readAllLines(new File(temporaryFolder.getRoot(), "pair,1.csv").toPath(), StandardCharsets.UTF_8);
+        assertEquals(Arrays.asList("V1,V2", "BASELINE, 10", "BASELINE, 11", "MODIFIED, 20"), lines);
+    }
+}
@@ -0,0 +1,66 @@
+package de.rub.nds.timingdockerevaluator.task.subtask;
+
+import java.util.Arrays;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import org.junit.Test;
+
+public class ExecutionPlanTest {
+
+    private static int[] countVectors(ExecutionPlan plan, int vectorCount) {
+        int[] counts = new int[vectorCount];
+        for (int i = 0; i < plan.size(); i++) {
+            counts[plan.getVector(i)]++;
+        }
+        return counts;
+    }
+
+    private static int[] getOrder(ExecutionPlan plan) {
+        int[] order = new int[plan.size()];
+        for (int i = 0; i < plan.size(); i++) {
+            order[i] = plan.getVector(i);
+        }
+        return order;
+    }
+
+    @Test
+    public void testCoversAllMeasurements() {
+        int[][] allocations = {{1}, {3, 5}, {1000, 1000}, {0, 7, 0, 13, 1}, {997, 1, 0, 2}, {4096, 4096, 4096}};
+        for (int[] allocation : allocations) {
+            for (long seed = 0; seed < 5; seed++) {
+                ExecutionPlan plan = new ExecutionPlan(allocation, seed);
+                assertArrayEquals(allocation, countVectors(plan, allocation.length));
+            }
+        }
+    }
+
+    @Test
+    public void testBalanced() {
+        ExecutionPlan plan = ExecutionPlan.balanced(3, 333, 1);
+        assertEquals(999, plan.size());
+        assertArrayEquals(new int[]{333, 333, 333}, countVectors(plan, 3));
+    }
+
+    @Test
+    public void testEmptyPlan() {
+        assertEquals(0, new ExecutionPlan(new int[]{0, 0}, 1).size());
+    }
+
+    @Test
+    public void testSeedDeterminesOrder() {
+        int[] allocation = {500, 300, 200};
+        assertArrayEquals(getOrder(new ExecutionPlan(allocation, 7)), getOrder(new ExecutionPlan(allocation, 7)));
+        assertNotEquals(Arrays.toString(getOrder(new ExecutionPlan(allocation, 7))), Arrays.toString(getOrder(new ExecutionPlan(allocation, 8))));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testPositionBeyondPlan() {
+        ExecutionPlan.balanced(2, 10, 1).getVector(20);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testNegativePosition() {
+        ExecutionPlan.balanced(2, 10, 1).getVector(-1);
+    }
+}
@@ -0,0 +1,52 @@
+package de.rub.nds.timingdockerevaluator.task.subtask;
+
+import java.util.Arrays;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class SampleAllocatorTest {
+
+    @Test
+    public void testAllocatesEntireBudget() {
+        SampleAllocator allocator = new SampleAllocator(0.3);
+        for (int budget : new int[]{0, 1, 7, 100, 1001, 65_537}) {
+            int[] allocation = allocator.allocate(budget, new double[]{1.5, 0.2, 7, 3.3}, new int[]{3, 1, 1, 1});
+            assertEquals(budget, Arrays.stream(allocation).sum());
+        }
+    }
+
+    @Test
+    public void testMinimumShare() {
+        int[] allocation = new SampleAllocator(0.5).allocate(1000, new double[]{100, 0, 0, 0}, new int[]{1, 1, 1, 1});
+        assertArrayEquals(new int[]{625, 125, 125, 125}, allocation);
+    }
+
+    @Test
+    public void testBaselineReceivesSquareRootOfComparisons() {
+        // baseline compared against four vectors with equal deviations
+        int[] allocation = new SampleAllocator(0).allocate(6000, new double[]{2, 2, 2, 2, 2}, new int[]{4, 1, 1, 1, 1});
+        assertArrayEquals(new int[]{2000, 1000, 1000, 1000, 1000}, allocation);
+    }
+
+    @Test
+    public void testProportionalToDeviation() {
+        int[] allocation = new SampleAllocator(0).allocate(900, new double[]{1, 2, 6}, new int[]{1, 1, 1});
+        assertArrayEquals(new int[]{100, 200, 600}, allocation);
+    }
+
+    @Test
+    public void testEvenSplitWithoutDeviations() {
+        int[] allocation = new SampleAllocator(0.1).allocate(10, new double[]{0, Double.NaN, 0}, new int[]{0, 2, 1});
+        assertEquals(10, Arrays.stream(allocation).sum());
+        for (int share : allocation) {
+            assertTrue(share == 3 || share == 4);
+        }
+    }
+
+    @Test
+    public void testNoVectors() {
+        assertEquals(0, new SampleAllocator(0.5).allocate(100, new double[0], new int[0]).length);
+    }
+}